@@ -1,20 +1,38 @@
 package com.example.apigateway.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.http.converter.json.GsonHttpMessageConverter;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.CorsWebFilter;
 import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
 import java.util.List;
 
 @Configuration
 public class AppConfig {
 
+    @Value("${gateway.auth.client.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${gateway.auth.client.pending-acquire-timeout-ms:2000}")
+    private long pendingAcquireTimeoutMs;
+
+    @Value("${gateway.auth.client.connect-timeout-ms:1000}")
+    private int connectTimeoutMs;
+
+    @Value("${gateway.auth.client.response-timeout-ms:2000}")
+    private long responseTimeoutMs;
+
     @Bean
     public HttpMessageConverters httpMessageConverters() {
         return new HttpMessageConverters(new GsonHttpMessageConverter());
@@ -27,6 +45,7 @@ public class AppConfig {
         configuration.setAllowedOrigins(List.of("http://localhost:8080", "http://localhost:8000", "http://localhost:3000"));
         configuration.addAllowedMethod(HttpMethod.DELETE);
         configuration.addAllowedMethod(HttpMethod.PATCH);
+        configuration.setExposedHeaders(List.of("X-Next-Max-Id", "X-Next-Since-Id"));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -34,8 +53,22 @@ public class AppConfig {
         return new CorsWebFilter(source);
     }
 
+    /**
+     * Non-blocking client for authentication-service with a bounded connection pool and timeouts,
+     * so a slow authentication-service can't hold event loop threads.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public WebClient authenticationWebClient(WebClient.Builder builder) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("authentication-service")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+
+        return builder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
     }
 }
@@ -0,0 +1,12 @@
+package com.example.apigateway.constant;
+
+public enum TokenValidationMode {
+    /**
+     * Tokens are verified by the gateway with the shared key and checked against the Redis denylist.
+     */
+    LOCAL,
+    /**
+     * Tokens are validated by authentication-service, and the results are cached for a short time.
+     */
+    REMOTE
+}
@@ -0,0 +1,8 @@
+package com.example.apigateway.dto;
+
+public record AuthenticatedUser(
+        String loggedInUser,
+        String profileId
+) {
+
+}
@@ -1,49 +1,60 @@
 package com.example.apigateway.filter;
 
 import com.example.apigateway.exception.MissingTokenException;
+import com.example.apigateway.service.TokenValidationService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+
+import static com.example.apigateway.filter.ProfileIdHeaderFilter.PROFILE_ID_HEADER;
 
 @Slf4j
 @Component
 public class AuthenticationGatewayFilterFactory extends AbstractGatewayFilterFactory<AuthenticationGatewayFilterFactory.Config> {
+    private static final String LOGGED_IN_USER_HEADER = "loggedInUser";
+
     private final RouteValidator validator;
-    private final RestTemplate restTemplate;
+    private final TokenValidationService tokenValidationService;
 
-    public AuthenticationGatewayFilterFactory(RouteValidator validator, RestTemplate restTemplate) {
+    public AuthenticationGatewayFilterFactory(RouteValidator validator, TokenValidationService tokenValidationService) {
         super(Config.class);
         this.validator = validator;
-        this.restTemplate = restTemplate;
+        this.tokenValidationService = tokenValidationService;
     }
 
     @Override
     public GatewayFilter apply(Config config) {
         return (exchange, chain) -> {
-            ServerHttpRequest request = null;
-            if (validator.isSecured.test(exchange.getRequest())) {
-                if (!exchange.getRequest().getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
-                    throw new MissingTokenException("Missing authorization header!");
-                }
-
-                String jwt = extractJwt(exchange.getRequest().getHeaders());
-
-                String loggedInUser = restTemplate.getForObject("http://localhost:8080//api//v1//auth//validate//" + jwt, String.class);
-                request = exchange.getRequest()
-                        .mutate()
-                        .header("loggedInUser", loggedInUser)
-                        .build();
+            if (!validator.isSecured.test(exchange.getRequest())) {
+                return chain.filter(exchange);
             }
-            assert request != null;
-            return chain.filter(
-                    exchange.mutate()
-                            .request(request)
-                            .build()
-            );
+            if (!exchange.getRequest().getHeaders().containsKey(HttpHeaders.AUTHORIZATION)) {
+                throw new MissingTokenException("Missing authorization header!");
+            }
+
+            String jwt = extractJwt(exchange.getRequest().getHeaders());
+            return tokenValidationService.validateToken(jwt)
+                    .flatMap(user -> {
+                        ServerHttpRequest request = exchange.getRequest()
+                                .mutate()
+                                .headers(headers -> {
+                                    headers.set(LOGGED_IN_USER_HEADER, user.loggedInUser());
+                                    if (user.profileId() != null) {
+                                        headers.set(PROFILE_ID_HEADER, user.profileId());
+                                    } else {
+                                        headers.remove(PROFILE_ID_HEADER);
+                                    }
+                                })
+                                .build();
+                        return chain.filter(
+                                exchange.mutate()
+                                        .request(request)
+                                        .build()
+                        );
+                    });
         };
     }
 
@@ -0,0 +1,41 @@
+package com.example.apigateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Drops the profile id header sent by clients on every route, secured or not, before any route filter runs.
+ * Downstream services trust the header, so it may only be set by {@link AuthenticationGatewayFilterFactory}
+ * from a validated token.
+ */
+@Component
+public class ProfileIdHeaderFilter implements GlobalFilter, Ordered {
+    static final String PROFILE_ID_HEADER = "profileId";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!exchange.getRequest().getHeaders().containsKey(PROFILE_ID_HEADER)) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest request = exchange.getRequest()
+                .mutate()
+                .headers(headers -> headers.remove(PROFILE_ID_HEADER))
+                .build();
+        return chain.filter(
+                exchange.mutate()
+                        .request(request)
+                        .build()
+        );
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.apigateway.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+
+/**
+ * Verifies tokens issued by authentication-service with the same HS256 key, so the gateway doesn't
+ * have to call authentication-service on every request.
+ */
+@Service
+public class JwtService {
+    public static final String PROFILE_ID_CLAIM = "profileId";
+
+    private final JwtParser jwtParser;
+    private final JwtParser unverifiedJwtParser = Jwts.parserBuilder().build();
+
+    public JwtService(@Value("${secret.key}") String secretKey) {
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey)))
+                .build();
+    }
+
+    /**
+     * Checks the signature and the expiration of the token and returns its claims.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public Claims extractAllClaims(String jwt) {
+        return jwtParser.parseClaimsJws(jwt).getBody();
+    }
+
+    /**
+     * Reads the expiration of a token that has already been verified, e.g. by authentication-service,
+     * without checking its signature.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed or expired
+     */
+    public Date extractExpirationWithoutVerification(String jwt) {
+        String unsignedJwt = jwt.substring(0, jwt.lastIndexOf('.') + 1);
+        return unverifiedJwtParser.parseClaimsJwt(unsignedJwt).getBody().getExpiration();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.apigateway.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Reads the denylist of revoked tokens that authentication-service maintains in Redis.
+ */
+@Service
+@RequiredArgsConstructor
+public class RevokedTokenService {
+    private static final String REVOKED_TOKEN_PREFIX = "revoked_token:";
+
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    public Mono<Boolean> isTokenRevoked(String jwt) {
+        return reactiveStringRedisTemplate.hasKey(REVOKED_TOKEN_PREFIX + hash(jwt));
+    }
+
+    private static String hash(String jwt) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
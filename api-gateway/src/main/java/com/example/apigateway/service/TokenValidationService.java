@@ -0,0 +1,145 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.constant.TokenValidationMode;
+import com.example.apigateway.dto.AuthenticatedUser;
+import com.example.apigateway.exception.InvalidTokenException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.apigateway.service.JwtService.PROFILE_ID_CLAIM;
+
+/**
+ * Resolves the user of a token without blocking the event loop. In {@link TokenValidationMode#LOCAL} mode
+ * the token is verified by the gateway, in {@link TokenValidationMode#REMOTE} mode by authentication-service,
+ * whose answers are cached for a short time, but never beyond the expiration of the token. A cached answer
+ * is only used while the token isn't on the denylist of revoked tokens.
+ * authentication-service returns the profile id of the token in a header, so it is propagated in both modes.
+ */
+@Slf4j
+@Service
+public class TokenValidationService {
+    private static final String PROFILE_ID_HEADER = "profileId";
+
+    private final JwtService jwtService;
+    private final RevokedTokenService revokedTokenService;
+    private final WebClient authenticationWebClient;
+    private final TokenValidationMode validationMode;
+    private final String validateUrl;
+    private final Cache<String, ValidatedToken> validatedTokens;
+
+    public TokenValidationService(
+            JwtService jwtService,
+            RevokedTokenService revokedTokenService,
+            WebClient authenticationWebClient,
+            @Value("${gateway.auth.validation-mode:LOCAL}") TokenValidationMode validationMode,
+            @Value("${gateway.auth.validate-url:http://localhost:8080/api/v1/auth/validate/}") String validateUrl,
+            @Value("${gateway.auth.cache.ttl-seconds:30}") long cacheTtlSeconds,
+            @Value("${gateway.auth.cache.max-size:100000}") long cacheMaxSize
+    ) {
+        this.jwtService = jwtService;
+        this.revokedTokenService = revokedTokenService;
+        this.authenticationWebClient = authenticationWebClient;
+        this.validationMode = validationMode;
+        this.validateUrl = validateUrl;
+        this.validatedTokens = Caffeine.newBuilder()
+                .expireAfter(new ValidatedTokenExpiry(Duration.ofSeconds(cacheTtlSeconds).toNanos()))
+                .maximumSize(cacheMaxSize)
+                .build();
+    }
+
+    public Mono<AuthenticatedUser> validateToken(String jwt) {
+        return validationMode == TokenValidationMode.LOCAL
+                ? validateTokenLocally(jwt)
+                : validateTokenRemotely(jwt);
+    }
+
+    private Mono<AuthenticatedUser> validateTokenLocally(String jwt) {
+        Claims claims;
+        try {
+            claims = jwtService.extractAllClaims(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("authentication token is invalid: {}", e.getMessage());
+            return Mono.error(new InvalidTokenException("Authentication token is invalid!"));
+        }
+
+        return revokedTokenService.isTokenRevoked(jwt)
+                .flatMap(isRevoked -> isRevoked
+                        ? Mono.error(new InvalidTokenException("Authentication token has been revoked!"))
+                        : Mono.just(new AuthenticatedUser(claims.getSubject(), claims.get(PROFILE_ID_CLAIM, String.class)))
+                );
+    }
+
+    private Mono<AuthenticatedUser> validateTokenRemotely(String jwt) {
+        ValidatedToken cachedToken = validatedTokens.getIfPresent(jwt);
+        if (cachedToken != null) {
+            return revokedTokenService.isTokenRevoked(jwt)
+                    .flatMap(isRevoked -> {
+                        if (isRevoked) {
+                            validatedTokens.invalidate(jwt);
+                            return Mono.error(new InvalidTokenException("Authentication token has been revoked!"));
+                        }
+                        return Mono.just(cachedToken.user());
+                    });
+        }
+
+        return authenticationWebClient.get()
+                .uri(validateUrl + "{jwt}", jwt)
+                .retrieve()
+                .onStatus(HttpStatusCode::is4xxClientError,
+                        response -> Mono.error(new InvalidTokenException("Authentication token is invalid!")))
+                .toEntity(String.class)
+                .map(response -> new AuthenticatedUser(response.getBody(), response.getHeaders().getFirst(PROFILE_ID_HEADER)))
+                .doOnNext(user -> cacheValidatedToken(jwt, user));
+    }
+
+    private void cacheValidatedToken(String jwt, AuthenticatedUser user) {
+        Date expiration;
+        try {
+            expiration = jwtService.extractExpirationWithoutVerification(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("expiration of the authentication token couldn't be read, it isn't cached: {}", e.getMessage());
+            return;
+        }
+        if (expiration != null) {
+            validatedTokens.put(jwt, new ValidatedToken(user, expiration.getTime()));
+        }
+    }
+
+    private record ValidatedToken(AuthenticatedUser user, long expiresAtMillis) {
+    }
+
+    /**
+     * Keeps a validated token for the cache TTL, or until the token expires if that is sooner.
+     */
+    private record ValidatedTokenExpiry(long ttlNanos) implements Expiry<String, ValidatedToken> {
+
+        @Override
+        public long expireAfterCreate(String jwt, ValidatedToken token, long currentTime) {
+            long untilExpirationNanos = TimeUnit.MILLISECONDS.toNanos(token.expiresAtMillis() - System.currentTimeMillis());
+            return Math.max(0, Math.min(ttlNanos, untilExpirationNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String jwt, ValidatedToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(jwt, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String jwt, ValidatedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
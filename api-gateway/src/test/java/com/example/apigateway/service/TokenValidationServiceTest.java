@@ -0,0 +1,146 @@
+package com.example.apigateway.service;
+
+import com.example.apigateway.constant.TokenValidationMode;
+import com.example.apigateway.dto.AuthenticatedUser;
+import com.example.apigateway.exception.InvalidTokenException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.apigateway.service.JwtService.PROFILE_ID_CLAIM;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class TokenValidationServiceTest {
+
+    private static final String SECRET_KEY = "dGVzdC1zZWNyZXQta2V5LWZvci10aGUtYXBpLWdhdGV3YXktdGVzdHM=";
+    private static final String EMAIL = "user@gmail.com";
+    private static final String PROFILE_ID = "profile id";
+
+    private final Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+    private final RevokedTokenService revokedTokenService = mock(RevokedTokenService.class);
+    private final AtomicInteger remoteValidations = new AtomicInteger();
+    private final TokenValidationService tokenValidationService = new TokenValidationService(
+            new JwtService(SECRET_KEY),
+            revokedTokenService,
+            WebClient.create(),
+            TokenValidationMode.LOCAL,
+            "http://localhost/validate/",
+            30,
+            100
+    );
+
+    @Test
+    public void validTokenTest() {
+        when(revokedTokenService.isTokenRevoked(anyString())).thenReturn(Mono.just(false));
+
+        AuthenticatedUser user = tokenValidationService.validateToken(buildJwt(key, 60_000)).block();
+
+        assertEquals(new AuthenticatedUser(EMAIL, PROFILE_ID), user);
+    }
+
+    @Test
+    public void tamperedTokenTest() {
+        String jwt = buildJwt(key, 60_000);
+        String[] parts = jwt.split("\\.");
+        String otherPayload = buildJwt(key, 120_000).split("\\.")[1];
+
+        assertInvalid(parts[0] + "." + otherPayload + "." + parts[2]);
+        assertInvalid(buildJwt(Keys.secretKeyFor(SignatureAlgorithm.HS256), 60_000));
+        assertInvalid("not a token");
+        verifyNoInteractions(revokedTokenService);
+    }
+
+    @Test
+    public void expiredTokenTest() {
+        assertInvalid(buildJwt(key, -1000));
+        verifyNoInteractions(revokedTokenService);
+    }
+
+    @Test
+    public void revokedTokenTest() {
+        String jwt = buildJwt(key, 60_000);
+        when(revokedTokenService.isTokenRevoked(jwt)).thenReturn(Mono.just(true));
+
+        assertInvalid(jwt);
+    }
+
+    @Test
+    public void remoteTokenIsCachedUntilItExpiresTest() throws InterruptedException {
+        TokenValidationService remoteValidationService = buildRemoteValidationService();
+        String jwt = buildJwt(key, 2000);
+        when(revokedTokenService.isTokenRevoked(jwt)).thenReturn(Mono.just(false));
+
+        assertEquals(new AuthenticatedUser(EMAIL, PROFILE_ID), remoteValidationService.validateToken(jwt).block());
+        assertEquals(new AuthenticatedUser(EMAIL, PROFILE_ID), remoteValidationService.validateToken(jwt).block());
+        assertEquals(1, remoteValidations.get());
+
+        // the cache TTL is longer than the token lives, whose expiration is rounded down to seconds
+        Thread.sleep(2100);
+        remoteValidationService.validateToken(jwt).block();
+        assertEquals(2, remoteValidations.get());
+    }
+
+    @Test
+    public void remoteRevokedTokenTest() {
+        TokenValidationService remoteValidationService = buildRemoteValidationService();
+        String jwt = buildJwt(key, 60_000);
+        when(revokedTokenService.isTokenRevoked(jwt)).thenReturn(Mono.just(false));
+
+        remoteValidationService.validateToken(jwt).block();
+        when(revokedTokenService.isTokenRevoked(jwt)).thenReturn(Mono.just(true));
+
+        assertThrows(InvalidTokenException.class, () -> remoteValidationService.validateToken(jwt).block());
+        assertEquals(1, remoteValidations.get());
+    }
+
+    private TokenValidationService buildRemoteValidationService() {
+        WebClient authenticationWebClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    remoteValidations.incrementAndGet();
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header("profileId", PROFILE_ID)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN_VALUE)
+                            .body(EMAIL)
+                            .build());
+                })
+                .build();
+        return new TokenValidationService(
+                new JwtService(SECRET_KEY),
+                revokedTokenService,
+                authenticationWebClient,
+                TokenValidationMode.REMOTE,
+                "http://localhost/validate/",
+                30,
+                100
+        );
+    }
+
+    private void assertInvalid(String jwt) {
+        assertThrows(InvalidTokenException.class, () -> tokenValidationService.validateToken(jwt).block());
+    }
+
+    private String buildJwt(Key signingKey, long expiresInMs) {
+        return Jwts.builder()
+                .setSubject(EMAIL)
+                .claim(PROFILE_ID_CLAIM, PROFILE_ID)
+                .setIssuedAt(new Date(System.currentTimeMillis() - 2000))
+                .setExpiration(new Date(System.currentTimeMillis() + expiresInMs))
+                .signWith(signingKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
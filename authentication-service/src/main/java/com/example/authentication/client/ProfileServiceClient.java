@@ -2,6 +2,8 @@ package com.example.authentication.client;
 
 import com.example.authentication.client.request.CreateProfileRequest;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
@@ -9,4 +11,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 public interface ProfileServiceClient {
     @PostMapping(value = "/api/v1/profiles")
     String createProfile(@RequestBody CreateProfileRequest request);
+
+    @GetMapping("/api/v1/profiles/id/{email}")
+    String getProfileIdByEmail(@PathVariable String email);
 }
@@ -4,6 +4,7 @@ import com.example.authentication.dto.request.AuthenticationRequest;
 import com.example.authentication.dto.request.RegisterRequest;
 import com.example.authentication.dto.response.ActivationCodeResponse;
 import com.example.authentication.dto.response.AuthenticationResponse;
+import com.example.authentication.dto.response.ValidatedTokenResponse;
 import com.example.authentication.service.AuthenticationService;
 import com.example.authentication.service.TokenService;
 import jakarta.validation.Valid;
@@ -18,6 +19,8 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 @RequestMapping("/api/v1/auth")
 public class AuthenticationController {
+    private static final String PROFILE_ID_HEADER = "profileId";
+
     private final AuthenticationService authenticationService;
     private final TokenService tokenService;
 
@@ -42,9 +45,17 @@ public class AuthenticationController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Returns the logged-in user of a valid token, and its profile id in the profileId header
+     * if the token carries one.
+     */
     @GetMapping("/validate/{jwt}")
     public ResponseEntity<String> isTokenValid(@PathVariable String jwt) {
-        String response = tokenService.isTokenValid(jwt);
-        return ResponseEntity.ok(response);
+        ValidatedTokenResponse response = tokenService.isTokenValid(jwt);
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.ok();
+        if (response.profileId() != null) {
+            responseBuilder.header(PROFILE_ID_HEADER, response.profileId());
+        }
+        return responseBuilder.body(response.loggedInUser());
     }
 }
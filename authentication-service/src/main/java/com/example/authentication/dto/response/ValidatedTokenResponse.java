@@ -0,0 +1,11 @@
+package com.example.authentication.dto.response;
+
+import lombok.Builder;
+
+@Builder
+public record ValidatedTokenResponse(
+        String loggedInUser,
+        String profileId
+) {
+
+}
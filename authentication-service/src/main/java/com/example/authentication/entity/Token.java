@@ -26,7 +26,7 @@ public class Token implements BaseEntity<Long> {
     @Enumerated(EnumType.STRING)
     public TokenType tokenType = TokenType.BEARER;
 
-    @Column(unique = true)
+    @Column(unique = true, columnDefinition = "TEXT")
     public String jwt;
 
     public boolean revoked;
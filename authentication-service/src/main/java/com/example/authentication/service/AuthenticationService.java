@@ -105,7 +105,8 @@ public class AuthenticationService {
             );
         }
     
-        String jwt = jwtService.generateJwt(account);
+        String profileId = getProfileIdByEmail(account.getEmail());
+        String jwt = jwtService.generateJwt(account, profileId);
         log.info("JWT gerado com sucesso para a conta {}", account.getEmail());
         tokenService.deleteTokenByAccount(account);
         tokenService.createToken(account, jwt);
@@ -126,4 +127,17 @@ public class AuthenticationService {
                 .message(messageService.generateMessage("account.activation.success"))
                 .build();
     }
+
+    /**
+     * The profile id claim only saves the gateway a lookup, so the token is issued without it
+     * when profile-service can't be reached.
+     */
+    private String getProfileIdByEmail(String email) {
+        try {
+            return profileServiceClient.getProfileIdByEmail(email);
+        } catch (RuntimeException e) {
+            log.warn("Id do perfil da conta {} não foi obtido, o JWT será gerado sem ele", email, e);
+            return null;
+        }
+    }
 }
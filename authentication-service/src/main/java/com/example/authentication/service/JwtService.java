@@ -1,68 +1,90 @@
 package com.example.authentication.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.function.Function;
+import java.util.HexFormat;
+import java.util.Map;
 
 @Service
-@RequiredArgsConstructor
 public class JwtService {
     public static final String JWT_PREFIX = "Bearer ";
+    public static final String PROFILE_ID_CLAIM = "profileId";
 
-    @Value("${secret.key}")
-    private String secretKey;
+    private final Key signInKey;
+    private final JwtParser jwtParser;
+
+    public JwtService(@Value("${secret.key}") String secretKey) {
+        this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
+    }
+
+    /**
+     * Issues a JWT for the account. The profile id is carried as a claim, so the gateway can pass it
+     * downstream and services don't have to resolve it from the email on every request.
+     */
+    public String generateJwt(UserDetails userDetails, String profileId) {
+        Map<String, Object> claims = new HashMap<>();
+        if (profileId != null) {
+            claims.put(PROFILE_ID_CLAIM, profileId);
+        }
 
-    public String generateJwt(UserDetails userDetails) {
         return Jwts.builder()
-                .setClaims(new HashMap<>())
+                .setClaims(claims)
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public boolean isJwtValid(String jwt, UserDetails userDetails) {
-        String username = extractEmail(jwt);
-        return username.equals(userDetails.getUsername()) && !isJwtExpired(jwt);
+    /**
+     * Parses the token once, checking its signature and expiration, and returns all of its claims.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, tampered with or expired
+     */
+    public Claims validateJwt(String jwt) {
+        return jwtParser.parseClaimsJws(jwt).getBody();
     }
 
-    public String extractEmail(String jwt) {
-        return extractClaim(jwt, Claims::getSubject);
+    public boolean isJwtValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date());
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
-    private <T> T extractClaim(String jwt, Function<Claims, T> claimsResolver) {
-        Claims claims = extractAllClaims(jwt);
-        return claimsResolver.apply(claims);
+    public String extractEmail(String jwt) {
+        return validateJwt(jwt).getSubject();
     }
 
-    private Claims extractAllClaims(String jwt) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(jwt)
-                .getBody();
+    public Date extractExpiration(String jwt) {
+        return validateJwt(jwt).getExpiration();
     }
 
-    private boolean isJwtExpired(String jwt) {
-        return extractClaim(jwt, Claims::getExpiration).before(new Date());
+    /**
+     * Hashes the token with SHA-256, so it can be used as a compact cache key without storing the token itself.
+     */
+    public String hashJwt(String jwt) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     public String extractJwt(HttpServletRequest request) {
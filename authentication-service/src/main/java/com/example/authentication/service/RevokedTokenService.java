@@ -0,0 +1,57 @@
+package com.example.authentication.service;
+
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * The gateway verifies tokens locally, so revoked tokens are published to a denylist in Redis.
+ * Every entry expires together with its token, so the denylist only holds tokens that are still valid.
+ * A token that can't be added would stay valid at the gateway, so the failure is thrown.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RevokedTokenService {
+    private static final String REVOKED_TOKEN_PREFIX = "revoked_token:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final JwtService jwtService;
+
+    public void revokeToken(String jwt) {
+        Duration timeToLive;
+        try {
+            timeToLive = Duration.ofMillis(jwtService.extractExpiration(jwt).getTime() - System.currentTimeMillis());
+        } catch (JwtException e) {
+            return;
+        }
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            return;
+        }
+
+        try {
+            stringRedisTemplate.opsForValue().set(REVOKED_TOKEN_PREFIX + jwtService.hashJwt(jwt), "", timeToLive);
+            log.info("token has been added to the denylist for {}", timeToLive);
+        } catch (RuntimeException e) {
+            log.error("token couldn't be added to the denylist", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Checks the denylist, a token is treated as not revoked if Redis is unavailable,
+     * so that it is checked against the database instead.
+     */
+    public boolean isTokenRevoked(String jwt) {
+        try {
+            return Boolean.TRUE.equals(stringRedisTemplate.hasKey(REVOKED_TOKEN_PREFIX + jwtService.hashJwt(jwt)));
+        } catch (RuntimeException e) {
+            log.warn("denylist couldn't be read", e);
+            return false;
+        }
+    }
+}
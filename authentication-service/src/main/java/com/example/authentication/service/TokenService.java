@@ -1,14 +1,18 @@
 package com.example.authentication.service;
 
+import com.example.authentication.dto.response.ValidatedTokenResponse;
 import com.example.authentication.entity.Account;
 import com.example.authentication.entity.Token;
 import com.example.authentication.exception.InvalidTokenException;
 import com.example.authentication.repository.TokenRepository;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
 import static com.example.authentication.model.TokenType.BEARER;
 
 @Service
@@ -17,6 +21,8 @@ public class TokenService {
     private final TokenRepository tokenRepository;
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final RevokedTokenService revokedTokenService;
+    private final ValidatedTokenCacheService validatedTokenCacheService;
 
     public void createToken(Account account, String jwt) {
         tokenRepository.save(
@@ -32,24 +38,52 @@ public class TokenService {
 
     public void deleteTokenByAccount(Account account) {
         tokenRepository.findByAccount_Id(account.getId())
-                .ifPresent(tokenRepository::delete);
+                .ifPresent(token -> {
+                    revokedTokenService.revokeToken(token.getJwt());
+                    validatedTokenCacheService.evictToken(token.getJwt());
+                    tokenRepository.delete(token);
+                });
     }
 
-    public String isTokenValid(String jwt) {
-        UserDetails userDetails = extractUserDetails(jwt);
+    /**
+     * Checks the signature and expiration of the token, then its state in the database. The result is cached
+     * until the token expires or is dropped, so repeated validations of a token don't query the database.
+     * A token in the denylist is invalid whatever is cached. The denylist is checked again after caching,
+     * because the token may have been dropped while its state was being read from the database.
+     * The profile id is taken from the claims of the token and is null for tokens issued without it.
+     */
+    public ValidatedTokenResponse isTokenValid(String jwt) {
+        Claims claims = jwtService.validateJwt(jwt);
+        if (revokedTokenService.isTokenRevoked(jwt)) {
+            throw new InvalidTokenException("Authentication token is invalid!");
+        }
+
+        Optional<String> cachedUser = validatedTokenCacheService.getLoggedInUser(jwt);
+        if (cachedUser.isPresent()) {
+            return buildValidatedTokenResponse(cachedUser.get(), claims);
+        }
+
+        UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
         boolean isTokenValid = tokenRepository.findByJwt(jwt)
                 .map(token -> !token.isExpired() && !token.isRevoked())
                 .orElse(false);
 
-        if (isTokenValid && jwtService.isJwtValid(jwt, userDetails)) {
-            return userDetails.getUsername();
-        } else {
+        if (!isTokenValid || !jwtService.isJwtValid(claims, userDetails)) {
+            throw new InvalidTokenException("Authentication token is invalid!");
+        }
+
+        validatedTokenCacheService.cacheLoggedInUser(jwt, userDetails.getUsername(), claims.getExpiration());
+        if (revokedTokenService.isTokenRevoked(jwt)) {
+            validatedTokenCacheService.evictToken(jwt);
             throw new InvalidTokenException("Authentication token is invalid!");
         }
+        return buildValidatedTokenResponse(userDetails.getUsername(), claims);
     }
 
-    private UserDetails extractUserDetails(String jwt) {
-        String email = jwtService.extractEmail(jwt);
-        return userDetailsService.loadUserByUsername(email);
+    private ValidatedTokenResponse buildValidatedTokenResponse(String loggedInUser, Claims claims) {
+        return ValidatedTokenResponse.builder()
+                .loggedInUser(loggedInUser)
+                .profileId(claims.get(JwtService.PROFILE_ID_CLAIM, String.class))
+                .build();
     }
 }
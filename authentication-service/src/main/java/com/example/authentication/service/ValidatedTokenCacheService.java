@@ -0,0 +1,56 @@
+package com.example.authentication.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Caches the owners of validated tokens in Redis, keyed by the hash of the token. An entry expires
+ * together with its token and is evicted when the token is dropped on logout or re-authentication.
+ * An entry that can't be evicted would keep a dropped token valid, so eviction failures are thrown.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ValidatedTokenCacheService {
+    private static final String VALIDATED_TOKEN_PREFIX = "validated_token:";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final JwtService jwtService;
+
+    public Optional<String> getLoggedInUser(String jwt) {
+        try {
+            return Optional.ofNullable(stringRedisTemplate.opsForValue().get(VALIDATED_TOKEN_PREFIX + jwtService.hashJwt(jwt)));
+        } catch (RuntimeException e) {
+            log.warn("validated token couldn't be read from cache", e);
+            return Optional.empty();
+        }
+    }
+
+    public void cacheLoggedInUser(String jwt, String loggedInUser, Date expiration) {
+        Duration timeToLive = Duration.ofMillis(expiration.getTime() - System.currentTimeMillis());
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            return;
+        }
+
+        try {
+            stringRedisTemplate.opsForValue().set(VALIDATED_TOKEN_PREFIX + jwtService.hashJwt(jwt), loggedInUser, timeToLive);
+        } catch (RuntimeException e) {
+            log.warn("validated token couldn't be cached", e);
+        }
+    }
+
+    public void evictToken(String jwt) {
+        try {
+            stringRedisTemplate.delete(VALIDATED_TOKEN_PREFIX + jwtService.hashJwt(jwt));
+        } catch (RuntimeException e) {
+            log.error("validated token couldn't be evicted from cache", e);
+            throw e;
+        }
+    }
+}
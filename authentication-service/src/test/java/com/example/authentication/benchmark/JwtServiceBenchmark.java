@@ -0,0 +1,86 @@
+package com.example.authentication.benchmark;
+
+import com.example.authentication.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.security.Key;
+import java.security.SecureRandom;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares validating a token with a single parse and a cached parser with the previous approach,
+ * which decoded the key, built a parser and parsed the token for each claim it read.
+ * Run the main method with the test classpath, e.g. after {@code mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt}:
+ * {@code java -cp target/test-classes:target/classes:$(cat cp.txt) com.example.authentication.benchmark.JwtServiceBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private String secretKey;
+    private JwtService jwtService;
+    private UserDetails userDetails;
+    private String jwt;
+
+    @Setup
+    public void setUp() {
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        secretKey = Encoders.BASE64.encode(keyBytes);
+
+        jwtService = new JwtService(secretKey);
+        userDetails = User.withUsername("test@gmail.com")
+                .password("password")
+                .authorities("USER")
+                .build();
+        jwt = jwtService.generateJwt(userDetails, "profile-id");
+    }
+
+    @Benchmark
+    public boolean validateOnce() {
+        Claims claims = jwtService.validateJwt(jwt);
+        return jwtService.isJwtValid(claims, userDetails);
+    }
+
+    @Benchmark
+    public boolean validateWithParsePerClaim() {
+        String email = extractClaim(jwt, Claims::getSubject);
+        String username = extractClaim(jwt, Claims::getSubject);
+        return username.equals(email)
+                && username.equals(userDetails.getUsername())
+                && !extractClaim(jwt, Claims::getExpiration).before(new Date());
+    }
+
+    private <T> T extractClaim(String jwt, Function<Claims, T> claimsResolver) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(jwt)
+                .getBody();
+        return claimsResolver.apply(claims);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtServiceBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
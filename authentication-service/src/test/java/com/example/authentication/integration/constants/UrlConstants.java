@@ -11,7 +11,8 @@ public enum UrlConstants {
     REGISTER_URL("/api/v1/auth/register"),
     AUTHENTICATE_URL("/api/v1/auth/authenticate"),
     LOGOUT_URL("/api/v1/auth/logout"),
-    ACTIVATION_URL("/api/v1/auth/activate");
+    ACTIVATION_URL("/api/v1/auth/activate"),
+    VALIDATE_URL("/api/v1/auth/validate/");
 
     private final String constant;
 }
@@ -24,6 +24,8 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -50,6 +52,7 @@ public class AuthenticationControllerTest extends IntegrationTestBase {
         activateAccount(NEW_ACCOUNT_EMAIL.getConstant());
         String token = authenticateAccountAndExpectToken(NEW_ACCOUNT_JSON.getConstant());
         assertNotNull(token);
+        validateTokenAndExpectUser(token, NEW_ACCOUNT_EMAIL.getConstant());
     }
 
     @Test
@@ -101,6 +104,15 @@ public class AuthenticationControllerTest extends IntegrationTestBase {
         return extractTokenFromResponse(result);
     }
 
+    private void validateTokenAndExpectUser(String token, String email) throws Exception {
+        mockMvc.perform(get(VALIDATE_URL.getConstant() + token))
+                .andExpectAll(
+                        status().isOk(),
+                        content().string(email),
+                        header().string("profileId", "dummy-profile-id")
+                );
+    }
+
     private void authenticateUnactivatedAccountAndExpectForbidden(String account, String email) throws Exception {
         mockMvc.perform(post(AUTHENTICATE_URL.getConstant())
                         .content(account)
@@ -4,6 +4,7 @@ import com.example.authentication.client.ProfileServiceClient;
 import com.example.authentication.client.request.CreateProfileRequest;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
 public class ProfileClientMock {
@@ -11,5 +12,7 @@ public class ProfileClientMock {
     public static void setupMockProfileResponse(ProfileServiceClient profileServiceClient) {
         when(profileServiceClient.createProfile(any(CreateProfileRequest.class)))
                 .thenReturn("dummy-profile-id");
+        when(profileServiceClient.getProfileIdByEmail(anyString()))
+                .thenReturn("dummy-profile-id");
     }
 }
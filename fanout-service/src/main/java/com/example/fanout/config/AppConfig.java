@@ -8,29 +8,14 @@ import com.google.gson.stream.JsonToken;
 import com.google.gson.stream.JsonWriter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.task.TaskExecutor;
-import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Configuration
-@EnableAsync
 public class AppConfig {
 
-    @Bean
-    public TaskExecutor taskExecutor() {
-        ThreadPoolTaskExecutor kafkaExecutor = new ThreadPoolTaskExecutor();
-        kafkaExecutor.setCorePoolSize(10);
-        kafkaExecutor.setMaxPoolSize(10);
-        kafkaExecutor.setQueueCapacity(10);
-        kafkaExecutor.setThreadNamePrefix("KafkaConsumer-");
-        kafkaExecutor.initialize();
-        return kafkaExecutor;
-    }
-
     @Bean
     public Gson gson() {
         return new GsonBuilder()
@@ -0,0 +1,122 @@
+package com.example.fanout.config;
+
+import com.example.fanout.dto.message.EntityMessage;
+import com.example.fanout.dto.message.EntityMessageCodec;
+import com.google.gson.Gson;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.example.fanout.constants.TopicName.HOME_TIMELINE_TOPIC;
+import static com.example.fanout.constants.TopicName.USER_TIMELINE_TOPIC;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+    private static final String DEAD_LETTER_TOPIC_SUFFIX = ".DLT";
+
+    @Value("${fanout.consumer.concurrency:${kafka.timeline-topics.partitions:6}}")
+    private int concurrency;
+
+    @Value("${fanout.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${fanout.consumer.retry-interval-ms:1000}")
+    private long retryIntervalMs;
+
+    @Value("${fanout.consumer.max-retries:3}")
+    private long maxRetries;
+
+    @Value("${kafka.timeline-topics.partitions:6}")
+    private int timelineTopicPartitions;
+
+    @Value("${kafka.timeline-topics.replication-factor:1}")
+    private short timelineTopicReplicationFactor;
+
+    @Bean
+    public ConsumerFactory<String, EntityMessage> entityMessageConsumerFactory(KafkaProperties kafkaProperties, Gson gson) {
+        return new DefaultKafkaConsumerFactory<>(
+                kafkaProperties.buildConsumerProperties(),
+                new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(new EntityMessageCodec(gson))
+        );
+    }
+
+    @Bean
+    public KafkaAdmin.NewTopics deadLetterTopics() {
+        return new KafkaAdmin.NewTopics(
+                new NewTopic(USER_TIMELINE_TOPIC + DEAD_LETTER_TOPIC_SUFFIX, timelineTopicPartitions, timelineTopicReplicationFactor),
+                new NewTopic(HOME_TIMELINE_TOPIC + DEAD_LETTER_TOPIC_SUFFIX, timelineTopicPartitions, timelineTopicReplicationFactor)
+        );
+    }
+
+    /**
+     * Listener container factory for batch listeners. Offsets of a batch are committed only after
+     * the listener returns. When a listener reports the index of the failed record, the records before
+     * it are committed and the batch is redelivered from it. A record that still fails once the retries
+     * are exhausted is published to the dead-letter topic of its topic before its offset is committed,
+     * so no message is lost. A record that couldn't be deserialized isn't retried. Concurrency defaults to the number of partitions of the timeline topics,
+     * one consumer per partition.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, EntityMessage> batchKafkaListenerContainerFactory(
+            ConsumerFactory<String, EntityMessage> entityMessageConsumerFactory,
+            KafkaProperties kafkaProperties,
+            Gson gson
+    ) {
+        ConcurrentKafkaListenerContainerFactory<String, EntityMessage> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(entityMessageConsumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        KafkaTemplate<String, EntityMessage> deadLetterTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(),
+                new StringSerializer(),
+                new EntityMessageCodec(gson)
+        ));
+        // records that couldn't be deserialized are published with their original bytes
+        KafkaTemplate<String, byte[]> undeserializedDeadLetterTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(),
+                new StringSerializer(),
+                new ByteArraySerializer()
+        ));
+        Map<Class<?>, KafkaOperations<?, ?>> deadLetterTemplates = new LinkedHashMap<>();
+        deadLetterTemplates.put(byte[].class, undeserializedDeadLetterTemplate);
+        deadLetterTemplates.put(EntityMessage.class, deadLetterTemplate);
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(
+                deadLetterTemplates,
+                (record, e) -> new TopicPartition(record.topic() + DEAD_LETTER_TOPIC_SUFFIX, -1)
+        );
+        factory.setCommonErrorHandler(new DefaultErrorHandler(recoverer, new FixedBackOff(retryIntervalMs, maxRetries)));
+
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        containerProperties.setAckMode(ContainerProperties.AckMode.BATCH);
+
+        Properties consumerProperties = new Properties();
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        containerProperties.setKafkaConsumerProperties(consumerProperties);
+        return factory;
+    }
+}
@@ -7,6 +7,7 @@ public record EntityMessage (
         Long entityId,
         String profileId,
         String entityName,
-        String operation
+        String operation,
+        Long timestamp
 ) {
 }
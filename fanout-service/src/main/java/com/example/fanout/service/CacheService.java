@@ -1,38 +1,227 @@
 package com.example.fanout.service;
 
-import com.google.common.reflect.TypeToken;
-import com.google.gson.Gson;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
+/**
+ * Timelines are stored as sorted sets of entity ids scored by creation time. Every timeline
+ * also holds a head member with the highest possible score, so that an empty timeline
+ * still exists in the cache and can be told apart from one that was never cached.
+ * timeline-service marks complete home timelines with a tail member with the lowest possible
+ * score, which is the first member trimmed when entities are added beyond the max size.
+ * All mutations are single server-side operations (a Lua script, ZREM or MULTI/EXEC),
+ * so concurrent messages for the same timeline never overwrite each other.
+ */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class CacheService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final Gson gson;
+    private static final String TIMELINE_HEAD = "head";
+    private static final double TIMELINE_HEAD_SCORE = Double.MAX_VALUE;
+    private static final String TIMELINE_TAIL = "tail";
+    private static final Duration TIMELINE_TTL = Duration.ofDays(14);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisScript<Long> addToTimelineScript;
+    private final MeterRegistry meterRegistry;
+    private byte[] addToTimelineScriptBody;
+
+    @Value("${fanout.pipeline.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${timeline.max-size:800}")
+    private int maxTimelineSize;
 
     @Nullable
-    @SuppressWarnings("all")
     public List<Long> getTimelineFromCache(String timelineKey) {
-        String json = (String) redisTemplate.opsForValue().get(timelineKey);
-        List<Long> list = null;
+        Set<String> timeline = redisTemplate.opsForZSet().reverseRange(timelineKey, 0, -1);
+        if (timeline == null || timeline.isEmpty()) {
+            return null;
+        }
+
+        return timeline.stream()
+                .skip(1)
+                .filter(member -> !TIMELINE_TAIL.equals(member))
+                .map(Long::valueOf)
+                .toList();
+    }
+
+    public void cacheTimeline(Map<Long, Long> entityIdToTimestamp, String timelineKey) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        tuples.add(ZSetOperations.TypedTuple.of(TIMELINE_HEAD, TIMELINE_HEAD_SCORE));
+        entityIdToTimestamp.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
+                .limit(maxTimelineSize)
+                .forEach(entry -> tuples.add(ZSetOperations.TypedTuple.of(entry.getKey().toString(), entry.getValue().doubleValue())));
+
+        redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public List<Object> execute(RedisOperations operations) throws DataAccessException {
+                operations.multi();
+                operations.delete(timelineKey);
+                operations.opsForZSet().add(timelineKey, tuples);
+                operations.expire(timelineKey, TIMELINE_TTL.toDays(), TimeUnit.DAYS);
+                return operations.exec();
+            }
+        });
+    }
+
+    public void addEntityToTimeline(Long entityId, long timestamp, String timelineKey) {
+        addEntityToTimelines(entityId, timestamp, List.of(timelineKey));
+    }
+
+    public void deleteEntityFromTimeline(Long entityId, String timelineKey) {
+        deleteEntityFromTimelines(entityId, List.of(timelineKey));
+    }
+
+    /**
+     * Adds the entity to every timeline that is already cached and drops the oldest entries
+     * beyond the max timeline size. Timelines that are not cached are skipped, they will be
+     * rebuilt with the entity on the next read.
+     */
+    public void addEntityToTimelines(Long entityId, long timestamp, List<String> timelineKeys) {
+        byte[][] args = {
+                toBytes(entityId.toString()),
+                toBytes(Long.toString(timestamp)),
+                toBytes(Integer.toString(maxTimelineSize)),
+                toBytes(Long.toString(TIMELINE_TTL.toSeconds()))
+        };
+
+        writeInChunks(
+                timelineKeys,
+                (connection, key) -> connection.scriptingCommands().evalSha(addToTimelineScript.getSha1(), ReturnType.INTEGER, 1, toKeysAndArgs(key, args)),
+                (connection, key) -> connection.scriptingCommands().eval(addToTimelineScriptBody, ReturnType.INTEGER, 1, toKeysAndArgs(key, args))
+        );
+    }
+
+    /**
+     * Loads the script once, so the pipelines send only its SHA1. If Redis has lost it, e.g. after
+     * a restart, the chunk falls back to EVAL, which loads it again.
+     */
+    @PostConstruct
+    public void loadScripts() {
+        addToTimelineScriptBody = toBytes(addToTimelineScript.getScriptAsString());
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.scriptingCommands().scriptLoad(addToTimelineScriptBody));
+        } catch (RuntimeException e) {
+            log.warn("add to timeline script couldn't be loaded, it will be loaded on first use", e);
+        }
+    }
+
+    public void deleteEntityFromTimelines(Long entityId, List<String> timelineKeys) {
+        byte[] member = toBytes(entityId.toString());
+        writeInChunks(timelineKeys, (connection, key) -> connection.zSetCommands().zRem(key, member));
+    }
+
+    /**
+     * Publishes the message to every channel, pipelined in chunks like the timeline writes.
+     * Channels without subscribers cost Redis almost nothing.
+     */
+    public void publishToChannels(String message, List<String> channels) {
+        byte[] body = toBytes(message);
+        for (int from = 0; from < channels.size(); from += chunkSize) {
+            List<String> chunk = channels.subList(from, Math.min(from + chunkSize, channels.size()));
+
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                chunk.forEach(channel -> connection.publish(toBytes(channel), body));
+                return null;
+            });
+            meterRegistry.counter("fanout.timeline.updates.published").increment(chunk.size());
+        }
+    }
+
+    /**
+     * Sends the command for every key through one pipeline per chunk, so a fanout
+     * to thousands of followers costs a few round trips instead of one per follower.
+     */
+    private void writeInChunks(List<String> timelineKeys, BiConsumer<RedisConnection, byte[]> command) {
+        writeInChunks(timelineKeys, command, null);
+    }
 
-        if (json != null) {
-            list = gson.fromJson(json, new TypeToken<List<Long>>(){}.getType());
+    /**
+     * Like {@link #writeInChunks(List, BiConsumer)}, but a chunk that fails because Redis doesn't
+     * know a script is written again with the fallback command.
+     */
+    private void writeInChunks(
+            List<String> timelineKeys,
+            BiConsumer<RedisConnection, byte[]> command,
+            @Nullable BiConsumer<RedisConnection, byte[]> noScriptFallbackCommand
+    ) {
+        for (int from = 0; from < timelineKeys.size(); from += chunkSize) {
+            List<String> chunk = timelineKeys.subList(from, Math.min(from + chunkSize, timelineKeys.size()));
+
+            try {
+                writeChunk(chunk, command);
+            } catch (RedisPipelineException e) {
+                if (noScriptFallbackCommand == null || !isNoScriptError(e)) {
+                    throw e;
+                }
+                log.warn("script is not loaded in Redis, writing {} keys with EVAL", chunk.size());
+                writeChunk(chunk, noScriptFallbackCommand);
+            }
+            meterRegistry.counter("fanout.timeline.keys.written").increment(chunk.size());
         }
+    }
+
+    private void writeChunk(List<String> chunk, BiConsumer<RedisConnection, byte[]> command) {
+        meterRegistry.timer("fanout.timeline.pipeline").record(() ->
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    chunk.forEach(key -> command.accept(connection, toBytes(key)));
+                    return null;
+                })
+        );
+    }
+
+    private static boolean isNoScriptError(RedisPipelineException e) {
+        List<Object> results = e.getPipelineResult() != null ? e.getPipelineResult() : List.of();
+        return Stream.concat(Stream.of(e), results.stream())
+                .anyMatch(result -> result instanceof Throwable throwable && containsNoScript(throwable));
+    }
+
+    private static boolean containsNoScript(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        return list;
+    private static byte[][] toKeysAndArgs(byte[] key, byte[][] args) {
+        byte[][] keysAndArgs = new byte[args.length + 1][];
+        keysAndArgs[0] = key;
+        System.arraycopy(args, 0, keysAndArgs, 1, args.length);
+        return keysAndArgs;
     }
 
-    @SuppressWarnings("all")
-    public void cacheTimeline(List<Long> timeline, String timelineKey) {
-        String json = gson.toJson(timeline, new TypeToken<List<Long>>(){}.getType());
-        redisTemplate.opsForValue().set(timelineKey, json, 14, TimeUnit.DAYS);
+    private static byte[] toBytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
     }
 }
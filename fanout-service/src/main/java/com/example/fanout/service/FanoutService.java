@@ -8,9 +8,19 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -25,51 +35,114 @@ public class FanoutService {
         private final String prefix;
     }
 
+    private static final String TIMELINE_UPDATES_CHANNEL_PREFIX = "timeline_updates:";
+
     private final ProfileServiceClient profileServiceClient;
     private final CacheService cacheService;
 
-    public void processMessageForUserTimeline(EntityMessage entityMessage) {
+    @Value("${fanout.push.enabled:true}")
+    private boolean pushEnabled;
+
+    /**
+     * Within a batch, ADD messages are applied before DELETE messages. An entity is always
+     * created before it is deleted, so this keeps the outcome of a batch independent of
+     * the order the messages were grouped in.
+     */
+    public void processMessagesForUserTimeline(List<EntityMessage> entityMessages) {
+        List<EntityMessage> deserializedMessages = entityMessages.stream()
+                .filter(Objects::nonNull)
+                .toList();
+        for (EntityMessage entityMessage : sortByOperation(deserializedMessages)) {
+            processMessageForUserTimeline(entityMessage);
+        }
+    }
+
+    /**
+     * Messages are grouped by author, so followers are resolved once per author per batch. Authors are
+     * processed in the order of their first message, so when an author fails, every message before its
+     * first one has been processed and only the batch from that message on has to be redelivered.
+     * Messages that couldn't be deserialized are nulls and are skipped.
+     */
+    public void processMessagesForHomeTimeline(List<EntityMessage> entityMessages) {
+        Map<String, List<EntityMessage>> messagesByAuthor = new LinkedHashMap<>();
+        Map<String, Integer> firstIndexByAuthor = new HashMap<>();
+        for (int i = 0; i < entityMessages.size(); i++) {
+            EntityMessage entityMessage = entityMessages.get(i);
+            if (entityMessage != null) {
+                messagesByAuthor.computeIfAbsent(entityMessage.profileId(), profileId -> new ArrayList<>()).add(entityMessage);
+                firstIndexByAuthor.putIfAbsent(entityMessage.profileId(), i);
+            }
+        }
+
+        messagesByAuthor.forEach((profileId, messages) -> {
+            try {
+                List<ProfileResponse> followers = profileServiceClient.getFollowers(profileId);
+                if (followers.size() < 10000) {
+                    for (EntityMessage entityMessage : sortByOperation(messages)) {
+                        processMessageForHomeTimeline(entityMessage, followers);
+                    }
+                }
+            } catch (RuntimeException e) {
+                throw new BatchListenerFailedException("Messages of " + profileId + " couldn't be processed", e, firstIndexByAuthor.get(profileId));
+            }
+        });
+    }
+
+    private void processMessageForUserTimeline(EntityMessage entityMessage) {
         final Long entityId = entityMessage.entityId();
+        final long timestamp = getTimestamp(entityMessage);
         final String timelineKey = TimelineCachePrefix.USER_TIMELINE_PREFIX.getPrefix().formatted(entityMessage.entityName()) + entityMessage.profileId();
 
         final Operation operation = Operation.valueOf(entityMessage.operation());
         switch (operation) {
-            case ADD -> addEntityToTimeline(entityId, timelineKey);
-            case DELETE -> deleteEntityFromTimeline(entityId, timelineKey);
+            case ADD -> cacheService.addEntityToTimeline(entityId, timestamp, timelineKey);
+            case DELETE -> cacheService.deleteEntityFromTimeline(entityId, timelineKey);
         }
     }
 
-    public void processMessageForHomeTimeline(EntityMessage entityMessage) {
+    private void processMessageForHomeTimeline(EntityMessage entityMessage, List<ProfileResponse> followers) {
         final Long entityId = entityMessage.entityId();
-        List<ProfileResponse> followers = profileServiceClient.getFollowers(entityMessage.profileId());
+        final long timestamp = getTimestamp(entityMessage);
         String prefix = TimelineCachePrefix.HOME_TIMELINE_PREFIX.getPrefix().formatted(entityMessage.entityName());
+        List<String> timelineKeys = followers.stream()
+                .map(follower -> prefix + follower.getProfileId())
+                .toList();
 
         final Operation operation = Operation.valueOf(entityMessage.operation());
-        if (followers.size() < 10000) {
-            for (ProfileResponse follower : followers) {
-                final String timelineKey = prefix + follower.getProfileId();
-
-                switch (operation) {
-                    case ADD -> addEntityToTimeline(entityId, timelineKey);
-                    case DELETE -> deleteEntityFromTimeline(entityId, timelineKey);
-                }
+        switch (operation) {
+            case ADD -> {
+                cacheService.addEntityToTimelines(entityId, timestamp, timelineKeys);
+                publishTimelineUpdate(entityMessage, followers);
             }
+            case DELETE -> cacheService.deleteEntityFromTimelines(entityId, timelineKeys);
         }
     }
 
-    private void addEntityToTimeline(Long entityId, String timelineKey) {
-        List<Long> timeline = cacheService.getTimelineFromCache(timelineKey);
-        if (timeline != null) {
-            timeline.add(0, entityId);
-            cacheService.cacheTimeline(timeline, timelineKey);
+    /**
+     * Tells timeline-service instances that the entity has landed in the home timelines of the followers,
+     * so that it can be pushed to the connected ones.
+     */
+    private void publishTimelineUpdate(EntityMessage entityMessage, List<ProfileResponse> followers) {
+        if (!pushEnabled) {
+            return;
         }
+
+        List<String> channels = followers.stream()
+                .map(follower -> TIMELINE_UPDATES_CHANNEL_PREFIX + follower.getProfileId())
+                .toList();
+        cacheService.publishToChannels(entityMessage.entityName() + ":" + entityMessage.entityId(), channels);
+    }
+
+    private List<EntityMessage> sortByOperation(List<EntityMessage> entityMessages) {
+        List<EntityMessage> sortedMessages = new ArrayList<>(entityMessages);
+        sortedMessages.sort(Comparator.comparing(entityMessage -> Operation.valueOf(entityMessage.operation())));
+        return sortedMessages;
     }
 
-    private void deleteEntityFromTimeline(Long entityId, String timelineKey) {
-        List<Long> timeline = cacheService.getTimelineFromCache(timelineKey);
-        if (timeline != null) {
-            timeline.removeIf(id -> id.equals(entityId));
-            cacheService.cacheTimeline(timeline, timelineKey);
+    private long getTimestamp(EntityMessage entityMessage) {
+        if (entityMessage.timestamp() != null) {
+            return entityMessage.timestamp();
         }
+        return LocalDateTime.now().toInstant(ZoneOffset.UTC).toEpochMilli();
     }
 }
@@ -1,42 +1,61 @@
 package com.example.fanout.service;
 
 import com.example.fanout.dto.message.EntityMessage;
-import com.google.gson.Gson;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.serializer.DeserializationException;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.CompletableFuture;
+import java.util.List;
+import java.util.function.Consumer;
 
 import static com.example.fanout.constants.TopicName.HOME_TIMELINE_TOPIC;
 import static com.example.fanout.constants.TopicName.USER_TIMELINE_TOPIC;
 
-
+/**
+ * Messages are consumed in batches on the listener thread. The next batch is not polled
+ * until the current one has been written to Redis, which gives back-pressure under bursts,
+ * and offsets are committed only after the batch has been processed.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class KafkaConsumerService {
 
     private final FanoutService fanoutService;
-    private final Gson gson;
-
-    @Async
-    @KafkaListener(topics = USER_TIMELINE_TOPIC)
-    public CompletableFuture<Void> receiveEntityMessageForUserTimeline(String msg) {
-        log.info("message for {} has been successfully received {}", USER_TIMELINE_TOPIC, msg);
-        EntityMessage entityMessage = gson.fromJson(msg, EntityMessage.class);
-        fanoutService.processMessageForUserTimeline(entityMessage);
-        return CompletableFuture.completedFuture(null);
+
+    @KafkaListener(topics = USER_TIMELINE_TOPIC, containerFactory = "batchKafkaListenerContainerFactory")
+    public void receiveEntityMessagesForUserTimeline(List<EntityMessage> messages) {
+        log.info("{} messages for {} have been successfully received", messages.size(), USER_TIMELINE_TOPIC);
+        processDeserializedMessages(messages, fanoutService::processMessagesForUserTimeline);
+    }
+
+    @KafkaListener(topics = HOME_TIMELINE_TOPIC, containerFactory = "batchKafkaListenerContainerFactory")
+    public void receiveEntityMessagesForHomeTimeline(List<EntityMessage> messages) {
+        log.info("{} messages for {} have been successfully received", messages.size(), HOME_TIMELINE_TOPIC);
+        processDeserializedMessages(messages, fanoutService::processMessagesForHomeTimeline);
     }
 
-    @Async
-    @KafkaListener(topics = HOME_TIMELINE_TOPIC)
-    public CompletableFuture<Void> receiveEntityMessageForHomeTimeline(String msg) {
-        log.info("message for {} has been successfully received {}", HOME_TIMELINE_TOPIC, msg);
-        EntityMessage entityMessage = gson.fromJson(msg, EntityMessage.class);
-        fanoutService.processMessageForHomeTimeline(entityMessage);
-        return CompletableFuture.completedFuture(null);
+    /**
+     * Records that couldn't be deserialized are delivered as nulls. The messages before the first of them
+     * are processed, and the failure is reported at its index, so the error handler commits the processed
+     * records and publishes the undeserialized one to the dead-letter topic without retrying it.
+     */
+    private void processDeserializedMessages(List<EntityMessage> messages, Consumer<List<EntityMessage>> processFunc) {
+        int undeserializedIndex = messages.indexOf(null);
+        if (undeserializedIndex < 0) {
+            processFunc.accept(messages);
+            return;
+        }
+
+        processFunc.accept(messages.subList(0, undeserializedIndex));
+        log.warn("message at index {} couldn't be deserialized, sending it to the dead-letter topic", undeserializedIndex);
+        throw new BatchListenerFailedException(
+                "Message couldn't be deserialized",
+                new DeserializationException("Message couldn't be deserialized", null, false, null),
+                undeserializedIndex
+        );
     }
 }
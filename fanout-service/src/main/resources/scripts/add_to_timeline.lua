@@ -0,0 +1,11 @@
+-- Adds an entity to a cached timeline, keeping only the newest entries.
+-- KEYS[1] - timeline key
+-- ARGV[1] - entity id, ARGV[2] - score, ARGV[3] - max timeline size, ARGV[4] - ttl in seconds
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+
+redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(tonumber(ARGV[3]) + 2))
+redis.call('EXPIRE', KEYS[1], ARGV[4])
+return 1
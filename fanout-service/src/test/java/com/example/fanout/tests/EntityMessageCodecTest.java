@@ -0,0 +1,68 @@
+package com.example.fanout.tests;
+
+import com.example.fanout.config.AppConfig;
+import com.example.fanout.dto.message.EntityMessage;
+import com.example.fanout.dto.message.EntityMessageCodec;
+import com.google.gson.Gson;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.example.fanout.constants.EntityName.REPLIES;
+import static com.example.fanout.constants.EntityName.RETWEETS;
+import static com.example.fanout.constants.EntityName.TWEETS;
+import static com.example.fanout.constants.Operation.ADD;
+import static com.example.fanout.constants.Operation.DELETE;
+import static com.example.fanout.constants.TopicName.HOME_TIMELINE_TOPIC;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EntityMessageCodecTest {
+
+    private final Gson gson = new AppConfig().gson();
+    private final EntityMessageCodec codec = new EntityMessageCodec(gson);
+
+    @Test
+    public void binaryRoundTripTest() {
+        EntityMessage message = buildMessage(42L, "profile id ü", TWEETS.getName(), ADD.getOperation(), 1_700_000_000_123L);
+
+        byte[] data = codec.serialize(HOME_TIMELINE_TOPIC, message);
+
+        assertEquals(EntityMessageCodec.VERSION, data[0]);
+        assertEquals(message, codec.deserialize(HOME_TIMELINE_TOPIC, data));
+    }
+
+    @Test
+    public void binaryRoundTripWithoutTimestampTest() {
+        EntityMessage message = buildMessage(Long.MAX_VALUE, "id", REPLIES.getName(), DELETE.getOperation(), null);
+
+        assertEquals(message, codec.deserialize(HOME_TIMELINE_TOPIC, codec.serialize(HOME_TIMELINE_TOPIC, message)));
+    }
+
+    @Test
+    public void jsonMessageIsDecodedTest() {
+        EntityMessage message = buildMessage(7L, "json profile id", RETWEETS.getName(), ADD.getOperation(), 1_700_000_000_000L);
+        byte[] json = gson.toJson(message).getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(message, codec.deserialize(HOME_TIMELINE_TOPIC, json));
+    }
+
+    @Test
+    public void emptyAndUnknownMessagesTest() {
+        assertNull(codec.deserialize(HOME_TIMELINE_TOPIC, null));
+        assertNull(codec.deserialize(HOME_TIMELINE_TOPIC, new byte[0]));
+        assertThrows(SerializationException.class, () -> codec.deserialize(HOME_TIMELINE_TOPIC, new byte[]{ 99 }));
+    }
+
+    private EntityMessage buildMessage(Long entityId, String profileId, String entityName, String operation, Long timestamp) {
+        return EntityMessage.builder()
+                .entityId(entityId)
+                .profileId(profileId)
+                .entityName(entityName)
+                .operation(operation)
+                .timestamp(timestamp)
+                .build();
+    }
+}
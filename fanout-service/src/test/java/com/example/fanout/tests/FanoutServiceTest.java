@@ -8,18 +8,36 @@ import com.example.fanout.dto.message.EntityMessage;
 import com.example.fanout.dto.response.ProfileResponse;
 import com.example.fanout.dto.response.TweetResponse;
 import com.example.fanout.service.CacheService;
+import com.example.fanout.service.FanoutService;
 import com.google.gson.Gson;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import org.apache.commons.lang.math.RandomUtils;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.kafka.test.context.EmbeddedKafka;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.example.fanout.constants.EntityName.TWEETS;
 import static com.example.fanout.constants.Operation.ADD;
@@ -30,6 +48,7 @@ import static com.example.fanout.constants.TopicName.HOME_TIMELINE_TOPIC;
 import static com.example.fanout.constants.TopicName.USER_TIMELINE_TOPIC;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.when;
 import static org.testcontainers.utility.Base58.randomString;
 
@@ -45,6 +64,9 @@ public class FanoutServiceTest extends IntegrationTestBase {
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final Gson gson;
     private final CacheService cacheService;
+    private final FanoutService fanoutService;
+    private final JedisConnectionFactory jedisConnectionFactory;
+    private final RedisTemplate<String, String> redisTemplate;
 
     @MockBean
     private final ProfileServiceClient profileServiceClient;
@@ -55,7 +77,7 @@ public class FanoutServiceTest extends IntegrationTestBase {
         TweetResponse tweet = buildDefaultTweet(RandomUtils.nextLong(), profile);
 
         String timelineKey = USER_TIMELINE_PREFIX.getPrefix().formatted(TWEETS.getName()) + profile.getProfileId();
-        cacheService.cacheTimeline(new LinkedList<>(), timelineKey);
+        cacheService.cacheTimeline(Map.of(), timelineKey);
 
         sendEntityMessageToKafka(USER_TIMELINE_TOPIC, buildDefaultMessage(tweet, TWEETS, ADD));
         validateTimelineFromCache(tweet, cacheService.getTimelineFromCache(timelineKey), 1);
@@ -77,6 +99,110 @@ public class FanoutServiceTest extends IntegrationTestBase {
         validateHomeTimelines(followers, null, 0);
     }
 
+    @Test
+    @SneakyThrows
+    public void homeTimelineUpdatesTest() {
+        ProfileResponse followee = buildDefaultProfile("updates followee id", "updates followee email");
+        List<ProfileResponse> followers = buildFollowersForProfile(followee, 3);
+        TweetResponse tweet = buildDefaultTweet(RandomUtils.nextLong(), followee);
+
+        List<String> updates = new CopyOnWriteArrayList<>();
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(jedisConnectionFactory);
+        for (ProfileResponse follower : followers) {
+            container.addMessageListener(
+                    (message, pattern) -> updates.add(new String(message.getBody(), StandardCharsets.UTF_8)),
+                    new ChannelTopic("timeline_updates:" + follower.getProfileId())
+            );
+        }
+        container.afterPropertiesSet();
+        container.start();
+
+        sendEntityMessageToKafka(HOME_TIMELINE_TOPIC, buildDefaultMessage(tweet, TWEETS, ADD));
+        container.destroy();
+
+        assertEquals(List.of("tweets:" + tweet.getId(), "tweets:" + tweet.getId(), "tweets:" + tweet.getId()), updates);
+    }
+
+    @Test
+    public void failedAuthorInHomeTimelineBatchTest() {
+        ProfileResponse followee = buildDefaultProfile("batch followee id", "batch followee email");
+        List<ProfileResponse> followers = buildFollowersForProfile(followee, 2);
+        ProfileResponse failingFollowee = buildDefaultProfile("failing followee id", "failing followee email");
+        when(profileServiceClient.getFollowers(failingFollowee.getProfileId()))
+                .thenThrow(new IllegalStateException("profile-service is unavailable"));
+
+        TweetResponse tweet = buildDefaultTweet(RandomUtils.nextLong(), followee);
+        TweetResponse failingTweet = buildDefaultTweet(RandomUtils.nextLong(), failingFollowee);
+        List<EntityMessage> batch = Arrays.asList(
+                null,
+                buildDefaultMessage(tweet, TWEETS, ADD),
+                buildDefaultMessage(failingTweet, TWEETS, ADD)
+        );
+
+        BatchListenerFailedException exception = assertThrows(
+                BatchListenerFailedException.class,
+                () -> fanoutService.processMessagesForHomeTimeline(batch)
+        );
+        assertEquals(2, exception.getIndex());
+        validateHomeTimelines(followers, tweet, 1);
+    }
+
+    @Test
+    public void addEntityWithUnloadedScriptTest() {
+        List<String> timelineKeys = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String timelineKey = HOME_TIMELINE_PREFIX.getPrefix().formatted(TWEETS.getName()) + randomString(10);
+            cacheService.cacheTimeline(Map.of(), timelineKey);
+            timelineKeys.add(timelineKey);
+        }
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.scriptingCommands().scriptFlush();
+            return null;
+        });
+
+        cacheService.addEntityToTimelines(1L, 1L, timelineKeys);
+        cacheService.addEntityToTimelines(2L, 2L, timelineKeys);
+
+        for (String timelineKey : timelineKeys) {
+            assertEquals(List.of(2L, 1L), cacheService.getTimelineFromCache(timelineKey));
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    public void concurrentTimelineMutationTest() {
+        int threads = 10;
+        int entitiesPerThread = 150;
+        String timelineKey = USER_TIMELINE_PREFIX.getPrefix().formatted(TWEETS.getName()) + randomString(10);
+        cacheService.cacheTimeline(Map.of(), timelineKey);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        Set<Long> expectedTimeline = ConcurrentHashMap.newKeySet();
+        for (int thread = 0; thread < threads; thread++) {
+            long firstId = (long) thread * entitiesPerThread;
+            futures.add(executor.submit(() -> {
+                for (long id = firstId; id < firstId + entitiesPerThread; id++) {
+                    cacheService.addEntityToTimeline(id, id, timelineKey);
+                    if (id % 2 == 0) {
+                        cacheService.deleteEntityFromTimeline(id, timelineKey);
+                    } else {
+                        expectedTimeline.add(id);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Long> timeline = cacheService.getTimelineFromCache(timelineKey);
+        assertNotNull(timeline);
+        assertEquals(expectedTimeline, new HashSet<>(timeline));
+    }
+
     private void validateHomeTimelines(List<ProfileResponse> followers, TweetResponse tweetResponse, int timelineSize) {
         for (ProfileResponse follower : followers) {
             String timelineKey = HOME_TIMELINE_PREFIX.getPrefix().formatted(TWEETS.getName()) + follower.getProfileId();
@@ -127,7 +253,7 @@ public class FanoutServiceTest extends IntegrationTestBase {
         List<ProfileResponse> followerList = new LinkedList<>();
         for (int i = 0; i < followers; i++) {
             ProfileResponse follower = buildDefaultProfile(randomString(5), randomString(5));
-            cacheService.cacheTimeline(new LinkedList<>(), HOME_TIMELINE_PREFIX.getPrefix().formatted(TWEETS.getName()) + follower.getProfileId());
+            cacheService.cacheTimeline(Map.of(), HOME_TIMELINE_PREFIX.getPrefix().formatted(TWEETS.getName()) + follower.getProfileId());
             followerList.add(follower);
         }
 
@@ -0,0 +1,9 @@
+package com.example.profile.constant;
+
+public class ChannelName {
+
+    public static final String PROFILE_UPDATES_CHANNEL = "profile_updates";
+
+    private ChannelName() {
+    }
+}
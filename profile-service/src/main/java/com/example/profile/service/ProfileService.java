@@ -15,12 +15,14 @@ import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.Optional;
 
 import static com.example.profile.constant.CacheName.PROFILES_CACHE;
+import static com.example.profile.constant.ChannelName.PROFILE_UPDATES_CHANNEL;
 
 @Service
 @RequiredArgsConstructor
@@ -30,6 +32,7 @@ public class ProfileService {
     private final MessageSourceService messageSourceService;
     private final FollowsUtil followsUtil;
     private final StorageServiceClient storageServiceClient;
+    private final StringRedisTemplate stringRedisTemplate;
 
     public String createProfile(CreateProfileRequest createProfileRequest) {
         return Optional.of(createProfileRequest)
@@ -56,7 +59,10 @@ public class ProfileService {
                 .filter(profile -> checkUpdateAvailabilityForUser(profile.getEmail(), loggedInUser))
                 .map(profile -> profileMapper.updateProfileFromUpdateProfileRequest(updateProfileRequest, profile))
                 .map(profileRepository::save)
-                .map(profile -> profileMapper.toResponse(profile, followsUtil))
+                .map(profile -> {
+                    publishProfileUpdate(profile);
+                    return profileMapper.toResponse(profile, followsUtil);
+                })
                 .orElseThrow(() -> new EntityNotFoundException(
                         messageSourceService.generateMessage("error.entity.not_found", id)
                 ));
@@ -70,6 +76,13 @@ public class ProfileService {
                 ));
     }
 
+    /**
+     * Notifies other services caching the profile locally that it has changed.
+     */
+    private void publishProfileUpdate(Profile profile) {
+        stringRedisTemplate.convertAndSend(PROFILE_UPDATES_CHANNEL, profile.getId());
+    }
+
     private boolean checkUpdateAvailabilityForUser(String updatingUser, String loggedInUser) {
         if (!updatingUser.equals(loggedInUser)) {
             throw new ActionNotAllowedException(
@@ -88,6 +101,7 @@ public class ProfileService {
                     String url = storageServiceClient.uploadFile(file);
                     profile.setAvatarUrl(url);
                     profileRepository.save(profile);
+                    publishProfileUpdate(profile);
                     return profile.getAvatarUrl() != null;
                 })
                 .orElse(false);
@@ -100,6 +114,7 @@ public class ProfileService {
                     String avatarUrl = profile.getAvatarUrl();
                     profile.setAvatarUrl(null);
                     profileRepository.save(profile);
+                    publishProfileUpdate(profile);
                     return avatarUrl;
                 })
                 .map(storageServiceClient::deleteFile)
@@ -115,6 +130,7 @@ public class ProfileService {
                     String url = storageServiceClient.uploadFile(file);
                     profile.setBannerUrl(url);
                     profileRepository.save(profile);
+                    publishProfileUpdate(profile);
                     return profile.getBannerUrl() != null;
                 })
                 .orElse(false);
@@ -127,6 +143,7 @@ public class ProfileService {
                     String bannerUrl = profile.getBannerUrl();
                     profile.setBannerUrl(null);
                     profileRepository.save(profile);
+                    publishProfileUpdate(profile);
                     return bannerUrl;
                 })
                 .map(storageServiceClient::deleteFile)
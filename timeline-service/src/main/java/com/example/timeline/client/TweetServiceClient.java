@@ -2,10 +2,7 @@ package com.example.timeline.client;
 
 import com.example.timeline.dto.response.TweetResponse;
 import org.springframework.cloud.openfeign.FeignClient;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestHeader;
-import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
@@ -15,21 +12,24 @@ public interface TweetServiceClient {
     @GetMapping("/api/v1/tweets/user/{profileId}")
     List<TweetResponse> getAllTweetsForUser(
             @PathVariable String profileId,
-            @RequestParam int page,
+            @RequestParam(required = false) Long beforeTimestamp,
+            @RequestParam(required = false) Long beforeId,
             @RequestParam int size
     );
 
     @GetMapping("/api/v1/retweets/user/{profileId}")
     List<TweetResponse> getAllRetweetsForUser(
             @PathVariable String profileId,
-            @RequestParam int page,
+            @RequestParam(required = false) Long beforeTimestamp,
+            @RequestParam(required = false) Long beforeId,
             @RequestParam int size
     );
 
     @GetMapping("/api/v1/replies/user/{profileId}")
     List<TweetResponse> getAllRepliesForUser(
             @PathVariable String profileId,
-            @RequestParam int page,
+            @RequestParam(required = false) Long beforeTimestamp,
+            @RequestParam(required = false) Long beforeId,
             @RequestParam int size
     );
 
@@ -41,4 +41,13 @@ public interface TweetServiceClient {
 
     @GetMapping("/api/v1/reply/{replyId}")
     TweetResponse getReply(@PathVariable Long replyId, @RequestHeader String loggedInUser);
+
+    @PostMapping("/api/v1/tweets/batch")
+    List<TweetResponse> getTweets(@RequestBody List<Long> tweetIds, @RequestHeader String loggedInUser);
+
+    @PostMapping("/api/v1/retweets/batch")
+    List<TweetResponse> getRetweets(@RequestBody List<Long> retweetIds, @RequestHeader String loggedInUser);
+
+    @PostMapping("/api/v1/replies/batch")
+    List<TweetResponse> getReplies(@RequestBody List<Long> replyIds, @RequestHeader String loggedInUser);
 }
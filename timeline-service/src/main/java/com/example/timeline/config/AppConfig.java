@@ -0,0 +1,50 @@
+package com.example.timeline.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AppConfig {
+
+    @Value("${timeline.rebuild.pool-size:20}")
+    private int poolSize;
+
+    @Value("${timeline.rebuild.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${timeline.push.max-connection-ms:600000}")
+    private long maxPushConnectionMs;
+
+    /**
+     * Update streams are closed by the service after the max connection duration,
+     * so async requests mustn't time out before that.
+     */
+    @Bean
+    public WebMvcConfigurer asyncSupportConfigurer() {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setDefaultTimeout(maxPushConnectionMs + 5000);
+            }
+        };
+    }
+
+    @Bean
+    public TaskExecutor timelineTaskExecutor() {
+        ThreadPoolTaskExecutor timelineExecutor = new ThreadPoolTaskExecutor();
+        timelineExecutor.setCorePoolSize(poolSize);
+        timelineExecutor.setMaxPoolSize(poolSize);
+        timelineExecutor.setQueueCapacity(queueCapacity);
+        timelineExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        timelineExecutor.setThreadNamePrefix("TimelineRebuild-");
+        timelineExecutor.initialize();
+        return timelineExecutor;
+    }
+}
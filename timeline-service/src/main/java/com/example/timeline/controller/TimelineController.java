@@ -1,11 +1,16 @@
 package com.example.timeline.controller;
 
+import com.example.timeline.dto.TimelinePosition;
 import com.example.timeline.dto.response.TweetResponse;
 import com.example.timeline.service.TimelineService;
+import com.example.timeline.service.TimelineUpdateService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 
@@ -14,15 +19,31 @@ import java.util.List;
 @RequiredArgsConstructor
 public class TimelineController {
 
+    private static final String NEXT_MAX_ID_HEADER = "X-Next-Max-Id";
+    private static final String NEXT_SINCE_ID_HEADER = "X-Next-Since-Id";
+
     private final TimelineService timelineService;
+    private final TimelineUpdateService timelineUpdateService;
 
     @GetMapping("/user")
     public ResponseEntity<List<TweetResponse>> getUserTimelineForLoggedInUser(
             @RequestHeader String loggedInUser,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestHeader(required = false) String profileId,
+            @RequestParam(name = "max_id", required = false) String maxId,
+            @RequestParam(name = "since_id", required = false) String sinceId,
+            @RequestParam(required = false) Integer page,
             @RequestParam(defaultValue = "20") int size
     ) {
-        return ResponseEntity.ok(timelineService.getUserTimelineForLoggedInUser(loggedInUser, PageRequest.of(page, size)));
+        if (page != null) {
+            return ResponseEntity.ok(timelineService.getUserTimelineForLoggedInUser(loggedInUser, profileId, PageRequest.of(page, size)));
+        }
+        return withCursors(timelineService.getUserTimelineForLoggedInUser(
+                loggedInUser,
+                profileId,
+                TimelinePosition.fromCursor(maxId),
+                TimelinePosition.fromCursor(sinceId),
+                size
+        ));
     }
 
     @GetMapping("/user/{profileId}")
@@ -37,10 +58,11 @@ public class TimelineController {
     @GetMapping("/user-replies")
     public ResponseEntity<List<TweetResponse>> getRepliesUserTimelineForLoggedInUser(
             @RequestHeader String loggedInUser,
+            @RequestHeader(required = false) String profileId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size
     ) {
-        return ResponseEntity.ok(timelineService.getRepliesUserTimelineForLoggedInUser(loggedInUser, PageRequest.of(page, size)));
+        return ResponseEntity.ok(timelineService.getRepliesUserTimelineForLoggedInUser(loggedInUser, profileId, PageRequest.of(page, size)));
     }
 
     @GetMapping("/user-replies/{profileId}")
@@ -55,9 +77,57 @@ public class TimelineController {
     @GetMapping("/home")
     public ResponseEntity<List<TweetResponse>> getHomeTimeline(
             @RequestHeader String loggedInUser,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestHeader(required = false) String profileId,
+            @RequestParam(name = "max_id", required = false) String maxId,
+            @RequestParam(name = "since_id", required = false) String sinceId,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        if (page != null) {
+            return ResponseEntity.ok(timelineService.getHomeTimelineForLoggedInUser(loggedInUser, profileId, PageRequest.of(page, size)));
+        }
+        return withCursors(timelineService.getHomeTimelineForLoggedInUser(
+                loggedInUser,
+                profileId,
+                TimelinePosition.fromCursor(maxId),
+                TimelinePosition.fromCursor(sinceId),
+                size
+        ));
+    }
+
+    @GetMapping("/home/since")
+    public ResponseEntity<List<TweetResponse>> getHomeTimelineUpdates(
+            @RequestHeader String loggedInUser,
+            @RequestHeader(required = false) String profileId,
+            @RequestParam(name = "since_id") String sinceId,
             @RequestParam(defaultValue = "20") int size
     ) {
-        return ResponseEntity.ok(timelineService.getHomeTimelineForLoggedInUser(loggedInUser, PageRequest.of(page, size)));
+        return withCursors(timelineService.getHomeTimelineUpdatesForLoggedInUser(
+                loggedInUser,
+                profileId,
+                TimelinePosition.fromCursor(sinceId),
+                size
+        ));
+    }
+
+    @GetMapping(value = "/home/updates", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamHomeTimelineUpdates(
+            @RequestHeader String loggedInUser,
+            @RequestHeader(required = false) String profileId
+    ) {
+        return timelineUpdateService.streamHomeTimelineUpdates(loggedInUser, profileId);
+    }
+
+    /**
+     * Returns the cursors of the oldest and the newest entity of the timeline, to be passed as
+     * {@code max_id} for the next page and as {@code since_id} to check for new entities.
+     */
+    private ResponseEntity<List<TweetResponse>> withCursors(List<TweetResponse> timeline) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!timeline.isEmpty()) {
+            response.header(NEXT_MAX_ID_HEADER, TimelinePosition.of(timeline.get(timeline.size() - 1)).toCursor());
+            response.header(NEXT_SINCE_ID_HEADER, TimelinePosition.of(timeline.get(0)).toCursor());
+        }
+        return response.body(timeline);
     }
 }
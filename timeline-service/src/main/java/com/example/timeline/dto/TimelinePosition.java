@@ -0,0 +1,60 @@
+package com.example.timeline.dto;
+
+import com.example.timeline.dto.response.TweetResponse;
+import com.example.timeline.exception.InvalidCursorException;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Position of an entity in a merged timeline. Tweets, retweets and replies share one id sequence,
+ * so the creation time in epoch millis, the score of the entity in the cache, together with the id
+ * orders every timeline from newest to oldest. Clients get positions as opaque cursors.
+ */
+public record TimelinePosition(long timestamp, long entityId) implements Comparable<TimelinePosition> {
+
+    private static final Comparator<TimelinePosition> NEWEST_FIRST = Comparator
+            .comparingLong(TimelinePosition::timestamp)
+            .thenComparingLong(TimelinePosition::entityId)
+            .reversed();
+
+    public static TimelinePosition of(TweetResponse entity) {
+        return new TimelinePosition(entity.getCreationDate().toInstant(ZoneOffset.UTC).toEpochMilli(), entity.getId());
+    }
+
+    @Nullable
+    public static TimelinePosition fromCursor(@Nullable String cursor) {
+        if (cursor == null) {
+            return null;
+        }
+
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf(':');
+            return new TimelinePosition(
+                    Long.parseLong(position.substring(0, separator)),
+                    Long.parseLong(position.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidCursorException("Timeline cursor %s is invalid".formatted(cursor));
+        }
+    }
+
+    public String toCursor() {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((timestamp + ":" + entityId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isOlderThan(TimelinePosition other) {
+        return compareTo(other) > 0;
+    }
+
+    @Override
+    public int compareTo(TimelinePosition other) {
+        return NEWEST_FIRST.compare(this, other);
+    }
+}
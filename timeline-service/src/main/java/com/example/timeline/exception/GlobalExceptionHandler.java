@@ -9,6 +9,11 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursorException(InvalidCursorException e) {
+        return generateDefaultErrorResponse(HttpStatus.BAD_REQUEST, e);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleExceptions(Exception e) {
         return generateDefaultErrorResponse(HttpStatus.INTERNAL_SERVER_ERROR, e);
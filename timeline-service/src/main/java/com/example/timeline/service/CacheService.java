@@ -1,38 +1,264 @@
 package com.example.timeline.service;
 
-import com.google.common.reflect.TypeToken;
-import com.google.gson.Gson;
+import com.example.timeline.dto.TimelinePosition;
+import com.example.timeline.dto.response.TweetResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+/**
+ * Timelines are stored as sorted sets of entity ids scored by creation time. Every timeline
+ * also holds a head member with the highest possible score, so that an empty timeline
+ * still exists in the cache and can be told apart from one that was never cached.
+ * A timeline that holds all entities there are may also hold a tail member with the lowest
+ * possible score. Trimming the timeline to the max size removes the tail first, so the tail
+ * tells a short timeline apart from one whose older entries have been dropped.
+ */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class CacheService {
 
+    private static final String TIMELINE_HEAD = "head";
+    private static final double TIMELINE_HEAD_SCORE = Double.MAX_VALUE;
+    private static final String TIMELINE_TAIL = "tail";
+    private static final double TIMELINE_TAIL_SCORE = Double.NEGATIVE_INFINITY;
+    private static final int TIED_ENTRIES_MARGIN = 16;
+    private static final String REBUILD_LEASE_PREFIX = "rebuild_lease:";
+    private static final Duration TIMELINE_TTL = Duration.ofDays(14);
+
     private final RedisTemplate<String, String> redisTemplate;
-    private final Gson gson;
+    private final RedisScript<Long> releaseLeaseScript;
+
+    @Value("${timeline.max-size:800}")
+    private int maxTimelineSize;
 
     @Nullable
-    @SuppressWarnings("all")
     public List<Long> getTimelineFromCache(String timelineKey) {
-        String json = redisTemplate.opsForValue().get(timelineKey);
-        List<Long> list = null;
+        Set<String> timeline = readTimeline(timelineKey, () -> redisTemplate.opsForZSet().reverseRange(timelineKey, 0, -1));
+        if (timeline == null || timeline.isEmpty()) {
+            return null;
+        }
+
+        return timeline.stream()
+                .skip(1)
+                .filter(member -> !TIMELINE_TAIL.equals(member))
+                .map(Long::valueOf)
+                .toList();
+    }
+
+    public List<Long> getTimelineFromCache(String timelineKey, int offset, int count) {
+        Set<String> timeline = readTimeline(timelineKey, () -> redisTemplate.opsForZSet().reverseRange(timelineKey, offset + 1, offset + count));
+        if (timeline == null) {
+            return List.of();
+        }
+
+        return timeline.stream()
+                .filter(member -> !TIMELINE_TAIL.equals(member))
+                .map(Long::valueOf)
+                .toList();
+    }
 
-        if (json != null) {
-            list = gson.fromJson(json, new TypeToken<List<Long>>(){}.getType());
+    /**
+     * Returns up to {@code count} positions of the timeline, newest first, that are older than {@code maxPosition}
+     * and newer than {@code sincePosition}. Only the requested range of the sorted set is read, so the cost
+     * doesn't depend on how deep the positions are. A few extra entries are read to step over entries
+     * created in the same millisecond as a bound.
+     */
+    public List<TimelinePosition> getTimelinePositions(
+            String timelineKey,
+            @Nullable TimelinePosition maxPosition,
+            @Nullable TimelinePosition sincePosition,
+            int count
+    ) {
+        double max = maxPosition != null ? maxPosition.timestamp() : TIMELINE_HEAD_SCORE;
+        double min = sincePosition != null ? sincePosition.timestamp() : Double.NEGATIVE_INFINITY;
+        Set<ZSetOperations.TypedTuple<String>> entries = readTimeline(timelineKey, () -> redisTemplate.opsForZSet()
+                .reverseRangeByScoreWithScores(timelineKey, min, max, 0, count + TIED_ENTRIES_MARGIN));
+        if (entries == null) {
+            return List.of();
         }
 
-        return list;
+        return entries.stream()
+                .filter(entry -> !TIMELINE_HEAD.equals(entry.getValue()) && !TIMELINE_TAIL.equals(entry.getValue()))
+                .map(entry -> new TimelinePosition(entry.getScore().longValue(), Long.parseLong(entry.getValue())))
+                .filter(position -> maxPosition == null || position.isOlderThan(maxPosition))
+                .filter(position -> sincePosition == null || sincePosition.isOlderThan(position))
+                .sorted()
+                .limit(count)
+                .toList();
+    }
+
+    /**
+     * Returns the position of the oldest entry of the timeline, which is the cursor for loading older entries.
+     */
+    @Nullable
+    public TimelinePosition getOldestPosition(String timelineKey) {
+        Set<ZSetOperations.TypedTuple<String>> oldest = readTimeline(timelineKey, () -> redisTemplate.opsForZSet()
+                .rangeByScoreWithScores(timelineKey, -Double.MAX_VALUE, Double.MAX_VALUE, 0, 1));
+        if (oldest == null || oldest.isEmpty()) {
+            return null;
+        }
+        ZSetOperations.TypedTuple<String> entry = oldest.iterator().next();
+        if (TIMELINE_HEAD.equals(entry.getValue())) {
+            return null;
+        }
+        return new TimelinePosition(entry.getScore().longValue(), Long.parseLong(entry.getValue()));
+    }
+
+    /**
+     * Counts the entries between the tail and the head, the count is null if the timeline isn't cached.
+     */
+    @Nullable
+    public Long getTimelineSize(String timelineKey) {
+        Long size = readTimeline(timelineKey, () -> redisTemplate.opsForZSet().count(timelineKey, -Double.MAX_VALUE, TIMELINE_HEAD_SCORE));
+        if (size == null || size == 0) {
+            return null;
+        }
+        return size - 1;
+    }
+
+    /**
+     * Checks whether the cached timeline holds all entities there are, so nothing older has to be loaded.
+     */
+    public boolean isTimelineComplete(String timelineKey) {
+        return readTimeline(timelineKey, () -> redisTemplate.opsForZSet().score(timelineKey, TIMELINE_TAIL)) != null;
+    }
+
+    /**
+     * Takes the lease for rebuilding the timeline, so that only one instance rebuilds it at a time.
+     * The lease expires by itself if its holder dies.
+     *
+     * @return the token of the lease, or null if it is held by someone else
+     */
+    @Nullable
+    public String tryAcquireRebuildLease(String timelineKey, Duration leaseDuration) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(REBUILD_LEASE_PREFIX + timelineKey, token, leaseDuration);
+        return Boolean.TRUE.equals(acquired) ? token : null;
     }
 
-    @SuppressWarnings("all")
-    public void cacheTimeline(List<Long> timeline, String timelineKey) {
-        String json = gson.toJson(timeline, new TypeToken<List<Long>>(){}.getType());
-        redisTemplate.opsForValue().set(timelineKey, json, 14, TimeUnit.DAYS);
+    public boolean isRebuildLeaseHeld(String timelineKey) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(REBUILD_LEASE_PREFIX + timelineKey));
+    }
+
+    public void releaseRebuildLease(String timelineKey, String token) {
+        redisTemplate.execute(releaseLeaseScript, List.of(REBUILD_LEASE_PREFIX + timelineKey), token);
+    }
+
+    public void cacheTimeline(List<TweetResponse> timeline, String timelineKey) {
+        cacheTimeline(timeline, timelineKey, false);
+    }
+
+    /**
+     * Caches the newest entries of a timeline sorted from newest to oldest, older entries
+     * beyond the max timeline size are dropped. A complete timeline that fits into the max
+     * size is cached with the tail.
+     */
+    public void cacheTimeline(List<TweetResponse> timeline, String timelineKey, boolean complete) {
+        cacheTimeline(timeline, timelineKey, complete, TIMELINE_TTL);
+    }
+
+    /**
+     * Caches the timeline like {@link #cacheTimeline(List, String, boolean)}, but lets it expire
+     * after the given time, e.g. to have a timeline with missing entries rebuilt soon.
+     */
+    public void cacheTimeline(List<TweetResponse> timeline, String timelineKey, boolean complete, Duration ttl) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        tuples.add(ZSetOperations.TypedTuple.of(TIMELINE_HEAD, TIMELINE_HEAD_SCORE));
+        if (complete && timeline.size() <= maxTimelineSize) {
+            tuples.add(ZSetOperations.TypedTuple.of(TIMELINE_TAIL, TIMELINE_TAIL_SCORE));
+        }
+        timeline.stream()
+                .limit(maxTimelineSize)
+                .forEach(entity -> tuples.add(ZSetOperations.TypedTuple.of(
+                        entity.getId().toString(),
+                        (double) entity.getCreationDate().toInstant(ZoneOffset.UTC).toEpochMilli()
+                )));
+
+        redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public List<Object> execute(RedisOperations operations) throws DataAccessException {
+                operations.multi();
+                operations.delete(timelineKey);
+                operations.opsForZSet().add(timelineKey, tuples);
+                operations.expire(timelineKey, ttl.toMillis(), TimeUnit.MILLISECONDS);
+                return operations.exec();
+            }
+        });
+    }
+
+    /**
+     * Appends entries older than the cached ones to the timeline, keeping at most the max timeline size.
+     */
+    public void appendToTimeline(List<TweetResponse> olderEntities, String timelineKey) {
+        if (olderEntities.isEmpty()) {
+            return;
+        }
+
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        tuples.add(ZSetOperations.TypedTuple.of(TIMELINE_HEAD, TIMELINE_HEAD_SCORE));
+        olderEntities.forEach(entity -> tuples.add(ZSetOperations.TypedTuple.of(
+                entity.getId().toString(),
+                (double) entity.getCreationDate().toInstant(ZoneOffset.UTC).toEpochMilli()
+        )));
+
+        redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public List<Object> execute(RedisOperations operations) throws DataAccessException {
+                operations.multi();
+                operations.opsForZSet().add(timelineKey, tuples);
+                operations.opsForZSet().removeRange(timelineKey, 0, -(maxTimelineSize + 2));
+                return operations.exec();
+            }
+        });
+    }
+
+    /**
+     * Reads a timeline, treating a key of another type, e.g. a timeline cached before timelines were
+     * moved to sorted sets, as a cache miss. The key is deleted, so the timeline gets rebuilt.
+     *
+     * @return the result of the read, or null if the key held another type
+     */
+    @Nullable
+    private <T> T readTimeline(String timelineKey, Supplier<T> read) {
+        try {
+            return read.get();
+        } catch (DataAccessException e) {
+            if (!isWrongTypeError(e)) {
+                throw e;
+            }
+            log.warn("timeline {} isn't a sorted set, removing it from cache", timelineKey);
+            redisTemplate.delete(timelineKey);
+            return null;
+        }
+    }
+
+    private static boolean isWrongTypeError(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("WRONGTYPE")) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,67 @@
+package com.example.timeline.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Removes timelines that were cached as JSON-encoded id lists before they were moved to sorted sets.
+ * The legacy lists carry no creation dates to score the entries by, so they are dropped
+ * and rebuilt on the next read instead of being converted. Instances starting at the same time
+ * may all run the migration, which is harmless because it only deletes keys.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TimelineMigrationService implements ApplicationRunner {
+
+    private static final String MIGRATION_MARKER_KEY = "timeline_migration:sorted_set";
+    private static final String TIMELINE_KEY_PATTERN = "*_timeline:*";
+    private static final int SCAN_BATCH_SIZE = 500;
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(MIGRATION_MARKER_KEY))) {
+            return;
+        }
+
+        Long deleted = redisTemplate.execute((RedisCallback<Long>) connection -> {
+            ScanOptions options = ScanOptions.scanOptions()
+                    .match(TIMELINE_KEY_PATTERN)
+                    .type(DataType.STRING)
+                    .count(SCAN_BATCH_SIZE)
+                    .build();
+
+            long count = 0;
+            List<byte[]> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+            try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() == SCAN_BATCH_SIZE) {
+                        count += connection.keyCommands().del(batch.toArray(byte[][]::new));
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                count += connection.keyCommands().del(batch.toArray(byte[][]::new));
+            }
+            return count;
+        });
+        // set only after the scan has finished, so an interrupted migration is run again on the next start
+        redisTemplate.opsForValue().set(MIGRATION_MARKER_KEY, "done");
+        log.info("{} legacy timelines have been removed from cache", deleted);
+    }
+}
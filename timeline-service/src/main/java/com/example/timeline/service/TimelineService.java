@@ -3,19 +3,36 @@ package com.example.timeline.service;
 import com.example.timeline.client.ProfileServiceClient;
 import com.example.timeline.client.TweetServiceClient;
 import com.example.timeline.constants.EntityName;
+import com.example.timeline.dto.TimelinePosition;
 import com.example.timeline.dto.response.ProfileResponse;
 import com.example.timeline.dto.response.TweetResponse;
+import com.example.timeline.util.TimelineUtil;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import reactor.function.Function3;
+import reactor.function.Function4;
 
-import java.util.LinkedList;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.example.timeline.constants.EntityName.*;
 
@@ -37,165 +54,639 @@ public class TimelineService {
     private final ProfileServiceClient profileServiceClient;
     private final TweetServiceClient tweetServiceClient;
     private final CacheService cacheService;
+    private final TaskExecutor timelineTaskExecutor;
+    private final TimelineUtil timelineUtil;
 
-    public List<TweetResponse> getUserTimelineForLoggedInUser(String loggedInUser, PageRequest page) {
-        return getUserTimeline(profileServiceClient.getAuthProfile(loggedInUser), page);
+    private final Map<String, CompletableFuture<List<TweetResponse>>> inFlightRebuilds = new ConcurrentHashMap<>();
+
+    @Value("${timeline.max-size:800}")
+    private int maxTimelineSize;
+
+    @Value("${timeline.rebuild.timeout-ms:3000}")
+    private long rebuildTimeoutMs;
+
+    @Value("${timeline.rebuild.max-concurrent-fetches:8}")
+    private int maxConcurrentFetches;
+
+    @Value("${timeline.rebuild.partial-ttl-ms:30000}")
+    private long partialTimelineTtlMs;
+
+    @Value("${timeline.rebuild.lease-ms:5000}")
+    private long rebuildLeaseMs;
+
+    @Value("${timeline.rebuild.max-wait-ms:3000}")
+    private long rebuildMaxWaitMs;
+
+    @Value("${timeline.rebuild.lease-poll-ms:50}")
+    private long rebuildLeasePollMs;
+
+    public List<TweetResponse> getUserTimelineForLoggedInUser(String loggedInUser, String profileId, PageRequest page) {
+        return getUserTimeline(getAuthProfile(loggedInUser, profileId), page);
     }
 
     public List<TweetResponse> getUserTimelineForAnotherInUser(String profileId, PageRequest page) {
         return getUserTimeline(profileServiceClient.getProfileById(profileId), page);
     }
 
-    public List<TweetResponse> getRepliesUserTimelineForLoggedInUser(String loggedInUser, PageRequest page) {
-        return getRepliesUserTimeline(profileServiceClient.getAuthProfile(loggedInUser), page);
+    public List<TweetResponse> getRepliesUserTimelineForLoggedInUser(String loggedInUser, String profileId, PageRequest page) {
+        return getRepliesUserTimeline(getAuthProfile(loggedInUser, profileId), page);
     }
 
     public List<TweetResponse> getRepliesUserTimelineForAnotherInUser(String profileId, PageRequest page) {
         return getRepliesUserTimeline(profileServiceClient.getProfileById(profileId), page);
     }
 
-    public List<TweetResponse> getHomeTimelineForLoggedInUser(String loggedInUser, PageRequest page) {
-        ProfileResponse profile = profileServiceClient.getAuthProfile(loggedInUser);
-        List<TweetResponse> tweets = getEntityHomeTimeline(profile, page, TWEETS, tweetServiceClient::getAllTweetsForUser, tweetServiceClient::getTweet);
-        List<TweetResponse> retweets = getEntityHomeTimeline(profile, page, RETWEETS, tweetServiceClient::getAllRetweetsForUser, tweetServiceClient::getRetweet);
-        return mergeTwoSortedLists(tweets, retweets);
+    public List<TweetResponse> getHomeTimelineForLoggedInUser(String loggedInUser, String profileId, PageRequest page) {
+        ProfileResponse profile = getAuthProfile(loggedInUser, profileId);
+        List<TweetResponse> tweets = getEntityHomeTimeline(profile, page, TWEETS, tweetServiceClient::getAllTweetsForUser, tweetServiceClient::getTweets);
+        List<TweetResponse> retweets = getEntityHomeTimeline(profile, page, RETWEETS, tweetServiceClient::getAllRetweetsForUser, tweetServiceClient::getRetweets);
+        return timelineUtil.mergeSortedTimelines(List.of(tweets, retweets));
+    }
+
+    /**
+     * Timelines only need the id and the email of the logged-in user, so when the gateway has already
+     * resolved the profile id, the profile isn't requested from profile-service.
+     */
+    private ProfileResponse getAuthProfile(String loggedInUser, String profileId) {
+        if (profileId == null) {
+            return profileServiceClient.getAuthProfile(loggedInUser);
+        }
+        return ProfileResponse.builder()
+                .profileId(profileId)
+                .email(loggedInUser)
+                .build();
+    }
+
+    /**
+     * Returns up to {@code count} entities of the user timeline that are older than {@code maxPosition}
+     * and newer than {@code sincePosition}, no matter how deep the positions are in the timeline.
+     */
+    public List<TweetResponse> getUserTimelineForLoggedInUser(
+            String loggedInUser,
+            String profileId,
+            @Nullable TimelinePosition maxPosition,
+            @Nullable TimelinePosition sincePosition,
+            int count
+    ) {
+        ProfileResponse profile = getAuthProfile(loggedInUser, profileId);
+        List<TweetResponse> tweets = getEntityUserTimeline(profile, maxPosition, sincePosition, count, TWEETS, tweetServiceClient::getAllTweetsForUser, tweetServiceClient::getTweets);
+        List<TweetResponse> retweets = getEntityUserTimeline(profile, maxPosition, sincePosition, count, RETWEETS, tweetServiceClient::getAllRetweetsForUser, tweetServiceClient::getRetweets);
+        return timelineUtil.mergeSortedTimelines(List.of(tweets, retweets), count);
+    }
+
+    /**
+     * Returns up to {@code count} entities of the home timeline that are older than {@code maxPosition}
+     * and newer than {@code sincePosition}, no matter how deep the positions are in the timeline.
+     */
+    public List<TweetResponse> getHomeTimelineForLoggedInUser(
+            String loggedInUser,
+            String profileId,
+            @Nullable TimelinePosition maxPosition,
+            @Nullable TimelinePosition sincePosition,
+            int count
+    ) {
+        ProfileResponse profile = getAuthProfile(loggedInUser, profileId);
+        List<TweetResponse> tweets = getEntityHomeTimeline(profile, maxPosition, sincePosition, count, TWEETS, tweetServiceClient::getAllTweetsForUser, tweetServiceClient::getTweets);
+        List<TweetResponse> retweets = getEntityHomeTimeline(profile, maxPosition, sincePosition, count, RETWEETS, tweetServiceClient::getAllRetweetsForUser, tweetServiceClient::getRetweets);
+        return timelineUtil.mergeSortedTimelines(List.of(tweets, retweets), count);
+    }
+
+    /**
+     * Returns up to {@code count} newest entities of the home timeline that are newer than {@code sincePosition}.
+     * The new positions are looked up in the cached timelines first and only they are hydrated, so when
+     * nothing is new the answer comes from the cache alone.
+     */
+    public List<TweetResponse> getHomeTimelineUpdatesForLoggedInUser(
+            String loggedInUser,
+            String profileId,
+            TimelinePosition sincePosition,
+            int count
+    ) {
+        ProfileResponse profile = getAuthProfile(loggedInUser, profileId);
+        List<ProfileResponse> celebrities = profileServiceClient.getFolloweesCelebrities(profile.getProfileId());
+        List<TimelinePosition> newTweets = getNewHomeTimelinePositions(profile, celebrities, sincePosition, count, TWEETS, tweetServiceClient::getAllTweetsForUser, tweetServiceClient::getTweets);
+        List<TimelinePosition> newRetweets = getNewHomeTimelinePositions(profile, celebrities, sincePosition, count, RETWEETS, tweetServiceClient::getAllRetweetsForUser, tweetServiceClient::getRetweets);
+        if (newTweets.isEmpty() && newRetweets.isEmpty()) {
+            return List.of();
+        }
+
+        List<TimelinePosition> newest = Stream.concat(newTweets.stream(), newRetweets.stream())
+                .sorted()
+                .limit(count)
+                .toList();
+        TimelinePosition oldest = newest.get(newest.size() - 1);
+        List<TweetResponse> tweets = mapPositionsToEntities(
+                newTweets.stream().filter(position -> !position.isOlderThan(oldest)).toList(),
+                profile.getEmail(),
+                tweetServiceClient::getTweets
+        );
+        List<TweetResponse> retweets = mapPositionsToEntities(
+                newRetweets.stream().filter(position -> !position.isOlderThan(oldest)).toList(),
+                profile.getEmail(),
+                tweetServiceClient::getRetweets
+        );
+        return timelineUtil.mergeSortedTimelines(List.of(tweets, retweets), count);
     }
 
     private List<TweetResponse> getUserTimeline(ProfileResponse profile, PageRequest page) {
-        List<TweetResponse> tweets = getEntityUserTimeline(profile, page, TWEETS, tweetServiceClient::getAllTweetsForUser, tweetServiceClient::getTweet);
-        List<TweetResponse> retweets = getEntityUserTimeline(profile, page, RETWEETS, tweetServiceClient::getAllRetweetsForUser, tweetServiceClient::getRetweet);
-        return mergeTwoSortedLists(tweets, retweets);
+        List<TweetResponse> tweets = getEntityUserTimeline(profile, page, TWEETS, tweetServiceClient::getAllTweetsForUser, tweetServiceClient::getTweets);
+        List<TweetResponse> retweets = getEntityUserTimeline(profile, page, RETWEETS, tweetServiceClient::getAllRetweetsForUser, tweetServiceClient::getRetweets);
+        return timelineUtil.mergeSortedTimelines(List.of(tweets, retweets));
     }
 
     private List<TweetResponse> getRepliesUserTimeline(ProfileResponse profile, PageRequest page) {
-        List<TweetResponse> replies = getEntityUserTimeline(profile, page, REPLIES, tweetServiceClient::getAllRepliesForUser, tweetServiceClient::getReply);
-        List<TweetResponse> retweets = getEntityUserTimeline(profile, page, RETWEETS, tweetServiceClient::getAllRetweetsForUser, tweetServiceClient::getRetweet);
-        return mergeTwoSortedLists(replies, retweets);
+        List<TweetResponse> replies = getEntityUserTimeline(profile, page, REPLIES, tweetServiceClient::getAllRepliesForUser, tweetServiceClient::getReplies);
+        List<TweetResponse> retweets = getEntityUserTimeline(profile, page, RETWEETS, tweetServiceClient::getAllRetweetsForUser, tweetServiceClient::getRetweets);
+        return timelineUtil.mergeSortedTimelines(List.of(replies, retweets));
     }
 
     private List<TweetResponse> getEntityUserTimeline(
             ProfileResponse profile,
             PageRequest page,
             EntityName entityName,
-            Function3<String, Integer, Integer, List<TweetResponse>> obtainEntitiesFromDbFunc,
-            BiFunction<Long, String, TweetResponse> mapFunc
+            Function4<String, Long, Long, Integer, List<TweetResponse>> obtainEntitiesFromDbFunc,
+            BiFunction<List<Long>, String, List<TweetResponse>> mapFunc
     ) {
         String timelineKey = TimelineCachePrefix.USER_TIMELINE_PREFIX.getPrefix().formatted(entityName.getName()) + profile.getProfileId();
         int seenNumberOfEntities = page.getPageNumber() * (page.getPageSize() / 2);
 
-        List<TweetResponse> userTimeline = mapIdsToEntities(cacheService.getTimelineFromCache(timelineKey), profile.getEmail(), mapFunc);
-        log.info("{} userTimeline received from cache", entityName.getName());
+        Long userTimelineSize = cacheService.getTimelineSize(timelineKey);
+        log.info("{} userTimeline size received from cache", entityName.getName());
 
-        if (userTimeline == null || (userTimeline.size() <= seenNumberOfEntities && userTimeline.size() > 0)) {
-            log.info("{} userTimeline is null or its size is too small", entityName.getName());
-            userTimeline = obtainEntitiesFromDbFunc.apply(profile.getProfileId(), 0, seenNumberOfEntities+100);
+        if (userTimelineSize == null) {
+            log.info("{} userTimeline is null", entityName.getName());
+            List<TweetResponse> userTimeline = obtainEntitiesFromDb(obtainEntitiesFromDbFunc, profile.getProfileId(), null, seenNumberOfEntities + page.getPageSize() / 2 + 100);
 
-            cacheService.cacheTimeline(mapEntitiesToIds(userTimeline), timelineKey);
+            cacheService.cacheTimeline(userTimeline, timelineKey);
             log.info("{} userTimeline has been cached with size {}", entityName.getName(), userTimeline.size());
+            return getPageOfTimeline(userTimeline, seenNumberOfEntities, page.getPageSize() / 2);
         }
 
-        if (seenNumberOfEntities < userTimeline.size()) {
-            userTimeline = userTimeline.subList(seenNumberOfEntities, Math.min(seenNumberOfEntities + (page.getPageSize() / 2), userTimeline.size()));
+        if (userTimelineSize <= seenNumberOfEntities && userTimelineSize > 0) {
+            TimelinePosition oldestPosition = cacheService.getOldestPosition(timelineKey);
+            log.info("{} userTimeline size is too small, loading entities older than {}", entityName.getName(), oldestPosition);
+            int skippedNumberOfEntities = seenNumberOfEntities - userTimelineSize.intValue();
+            List<TweetResponse> olderEntities = obtainEntitiesFromDb(
+                    obtainEntitiesFromDbFunc,
+                    profile.getProfileId(),
+                    oldestPosition,
+                    skippedNumberOfEntities + page.getPageSize() / 2
+            );
+
+            cacheService.appendToTimeline(olderEntities, timelineKey);
+            return olderEntities.stream()
+                    .skip(skippedNumberOfEntities)
+                    .limit(page.getPageSize() / 2)
+                    .collect(Collectors.toCollection(ArrayList::new));
         }
-        return userTimeline;
+
+        return mapIdsToEntities(
+                cacheService.getTimelineFromCache(timelineKey, seenNumberOfEntities, page.getPageSize() / 2),
+                profile.getEmail(),
+                mapFunc
+        );
     }
 
     private List<TweetResponse> getEntityHomeTimeline(
             ProfileResponse profile,
             PageRequest page,
             EntityName entityName,
-            Function3<String, Integer, Integer, List<TweetResponse>> obtainEntitiesFromDbFunc,
-            BiFunction<Long, String, TweetResponse> mapFunc
+            Function4<String, Long, Long, Integer, List<TweetResponse>> obtainEntitiesFromDbFunc,
+            BiFunction<List<Long>, String, List<TweetResponse>> mapFunc
     ) {
         String timelineKey = TimelineCachePrefix.HOME_TIMELINE_PREFIX.getPrefix().formatted(entityName.getName()) + profile.getProfileId();
         int seenNumberOfEntities = page.getPageNumber() * (page.getPageSize() / 2);
 
-        List<TweetResponse> homeTimeline = mapIdsToEntities(cacheService.getTimelineFromCache(timelineKey), profile.getEmail(), mapFunc);
-        log.info("{} homeTimeline received from cache", entityName.getName());
+        Long homeTimelineSize = cacheService.getTimelineSize(timelineKey);
+        log.info("{} homeTimeline size received from cache", entityName.getName());
 
-        if (homeTimeline == null || (homeTimeline.size() <= seenNumberOfEntities && homeTimeline.size() > 0)) {
+        List<TweetResponse> homeTimeline;
+        if (homeTimelineSize == null || (homeTimelineSize <= seenNumberOfEntities && homeTimelineSize > 0)) {
             log.info("{} homeTimeline is null or its size is too small", entityName.getName());
+            homeTimeline = rebuildHomeTimeline(
+                    profile,
+                    seenNumberOfEntities + page.getPageSize(),
+                    timelineKey,
+                    entityName,
+                    obtainEntitiesFromDbFunc,
+                    mapFunc
+            );
+            homeTimeline = getPageOfTimeline(homeTimeline, seenNumberOfEntities, page.getPageSize() / 2);
+        } else {
+            homeTimeline = mapIdsToEntities(
+                    cacheService.getTimelineFromCache(timelineKey, seenNumberOfEntities, page.getPageSize() / 2),
+                    profile.getEmail(),
+                    mapFunc
+            );
+        }
+
+        List<ProfileResponse> celebrities = profileServiceClient.getFolloweesCelebrities(profile.getProfileId());
+        List<List<TweetResponse>> celebrityTimelines = getEntityUserTimelines(
+                celebrities,
+                entityName,
+                celebrity -> getEntityUserTimeline(celebrity, page, entityName, obtainEntitiesFromDbFunc, mapFunc)
+        );
+        for (List<TweetResponse> celebrityTimeline : celebrityTimelines) {
+            homeTimeline.addAll(celebrityTimeline);
+        }
+
+        homeTimeline.sort((a,b) -> b.getCreationDate().compareTo(a.getCreationDate()));
+        return homeTimeline;
+    }
+
+    /**
+     * Reads a slice of the cached user timeline between the positions. When older entities are requested
+     * and the cache runs out, the rest of the slice is loaded from tweet-service after the last position.
+     */
+    private List<TweetResponse> getEntityUserTimeline(
+            ProfileResponse profile,
+            @Nullable TimelinePosition maxPosition,
+            @Nullable TimelinePosition sincePosition,
+            int count,
+            EntityName entityName,
+            Function4<String, Long, Long, Integer, List<TweetResponse>> obtainEntitiesFromDbFunc,
+            BiFunction<List<Long>, String, List<TweetResponse>> mapFunc
+    ) {
+        String timelineKey = TimelineCachePrefix.USER_TIMELINE_PREFIX.getPrefix().formatted(entityName.getName()) + profile.getProfileId();
+        cacheUserTimelineIfAbsent(profile, count, timelineKey, entityName, obtainEntitiesFromDbFunc);
+
+        List<TimelinePosition> positions = cacheService.getTimelinePositions(timelineKey, maxPosition, sincePosition, count);
+        List<TweetResponse> userTimeline = mapPositionsToEntities(positions, profile.getEmail(), mapFunc);
+        if (positions.size() < count && sincePosition == null) {
+            TimelinePosition lastPosition = getLastPosition(positions, maxPosition);
+            userTimeline.addAll(obtainEntitiesFromDb(obtainEntitiesFromDbFunc, profile.getProfileId(), lastPosition, count - positions.size()));
+        }
+        return userTimeline;
+    }
+
+    /**
+     * Reads a slice of the cached home timeline between the positions and merges it with the celebrity
+     * timelines. When older entities are requested and the cache runs out, the rest of the slice is
+     * loaded from the user timelines of the followees after the last position, unless the cache holds
+     * all entities of the followees.
+     */
+    private List<TweetResponse> getEntityHomeTimeline(
+            ProfileResponse profile,
+            @Nullable TimelinePosition maxPosition,
+            @Nullable TimelinePosition sincePosition,
+            int count,
+            EntityName entityName,
+            Function4<String, Long, Long, Integer, List<TweetResponse>> obtainEntitiesFromDbFunc,
+            BiFunction<List<Long>, String, List<TweetResponse>> mapFunc
+    ) {
+        String timelineKey = TimelineCachePrefix.HOME_TIMELINE_PREFIX.getPrefix().formatted(entityName.getName()) + profile.getProfileId();
+        if (cacheService.getTimelineSize(timelineKey) == null) {
+            log.info("{} homeTimeline is null", entityName.getName());
+            rebuildHomeTimeline(profile, 2 * count, timelineKey, entityName, obtainEntitiesFromDbFunc, mapFunc);
+        }
+
+        List<TimelinePosition> positions = cacheService.getTimelinePositions(timelineKey, maxPosition, sincePosition, count);
+        List<List<TweetResponse>> timelines = new ArrayList<>();
+        timelines.add(mapPositionsToEntities(positions, profile.getEmail(), mapFunc));
+        if (positions.size() < count && sincePosition == null && !cacheService.isTimelineComplete(timelineKey)) {
+            TimelinePosition lastPosition = getLastPosition(positions, maxPosition);
+            int remaining = count - positions.size();
+            timelines.addAll(getEntityUserTimelines(
+                    getFolloweesWithoutCelebrities(profile),
+                    entityName,
+                    followee -> obtainEntitiesFromDb(obtainEntitiesFromDbFunc, followee.getProfileId(), lastPosition, remaining)
+            ));
+        }
+
+        List<ProfileResponse> celebrities = profileServiceClient.getFolloweesCelebrities(profile.getProfileId());
+        timelines.addAll(getEntityUserTimelines(
+                celebrities,
+                entityName,
+                celebrity -> getEntityUserTimeline(celebrity, maxPosition, sincePosition, count, entityName, obtainEntitiesFromDbFunc, mapFunc)
+        ));
+        return timelineUtil.mergeSortedTimelines(timelines, count);
+    }
+
+    /**
+     * Returns the positions of the cached home timeline and of the celebrity timelines that are newer
+     * than {@code sincePosition}, the entities themselves aren't requested.
+     */
+    private List<TimelinePosition> getNewHomeTimelinePositions(
+            ProfileResponse profile,
+            List<ProfileResponse> celebrities,
+            TimelinePosition sincePosition,
+            int count,
+            EntityName entityName,
+            Function4<String, Long, Long, Integer, List<TweetResponse>> obtainEntitiesFromDbFunc,
+            BiFunction<List<Long>, String, List<TweetResponse>> mapFunc
+    ) {
+        String timelineKey = TimelineCachePrefix.HOME_TIMELINE_PREFIX.getPrefix().formatted(entityName.getName()) + profile.getProfileId();
+        if (cacheService.getTimelineSize(timelineKey) == null) {
+            log.info("{} homeTimeline is null", entityName.getName());
+            rebuildHomeTimeline(profile, 2 * count, timelineKey, entityName, obtainEntitiesFromDbFunc, mapFunc);
+        }
+
+        List<TimelinePosition> positions = new ArrayList<>(cacheService.getTimelinePositions(timelineKey, null, sincePosition, count));
+        for (ProfileResponse celebrity : celebrities) {
+            String userTimelineKey = TimelineCachePrefix.USER_TIMELINE_PREFIX.getPrefix().formatted(entityName.getName()) + celebrity.getProfileId();
+            cacheUserTimelineIfAbsent(celebrity, count, userTimelineKey, entityName, obtainEntitiesFromDbFunc);
+            positions.addAll(cacheService.getTimelinePositions(userTimelineKey, null, sincePosition, count));
+        }
+        return positions;
+    }
 
-            List<List<TweetResponse>> lists = new LinkedList<>();
-            for (ProfileResponse followee : profileServiceClient.getFollowees(profile.getProfileId())) {
-                if (followee.getFollowers() < 10000) {
-                    lists.add(getEntityUserTimeline(
-                            followee,
-                            PageRequest.of(0, seenNumberOfEntities+page.getPageSize()),
-                            entityName,
-                            obtainEntitiesFromDbFunc,
-                            mapFunc
-                    ));
+    private void cacheUserTimelineIfAbsent(
+            ProfileResponse profile,
+            int count,
+            String timelineKey,
+            EntityName entityName,
+            Function4<String, Long, Long, Integer, List<TweetResponse>> obtainEntitiesFromDbFunc
+    ) {
+        if (cacheService.getTimelineSize(timelineKey) == null) {
+            log.info("{} userTimeline is null", entityName.getName());
+            List<TweetResponse> userTimeline = obtainEntitiesFromDb(obtainEntitiesFromDbFunc, profile.getProfileId(), null, count + 100);
+            cacheService.cacheTimeline(userTimeline, timelineKey);
+            log.info("{} userTimeline has been cached with size {}", entityName.getName(), userTimeline.size());
+        }
+    }
+
+    @Nullable
+    private TimelinePosition getLastPosition(List<TimelinePosition> positions, @Nullable TimelinePosition maxPosition) {
+        if (!positions.isEmpty()) {
+            return positions.get(positions.size() - 1);
+        }
+        return maxPosition;
+    }
+
+    /**
+     * Loads the entities older than {@code before} from tweet-service. The position is passed by value,
+     * so the entity at it doesn't have to exist anymore.
+     */
+    private List<TweetResponse> obtainEntitiesFromDb(
+            Function4<String, Long, Long, Integer, List<TweetResponse>> obtainEntitiesFromDbFunc,
+            String profileId,
+            @Nullable TimelinePosition before,
+            int size
+    ) {
+        if (before == null) {
+            return obtainEntitiesFromDbFunc.apply(profileId, null, null, size);
+        }
+        return obtainEntitiesFromDbFunc.apply(profileId, before.timestamp(), before.entityId(), size);
+    }
+
+    /**
+     * Rebuilds the home timeline at most once at a time. Concurrent requests of this instance wait for
+     * the rebuild in flight and read their own size of it from the cache. Other instances are kept out
+     * by a Redis lease: while it is held, they wait for the timeline to be cached and read it from the cache.
+     * All waits of a request share one deadline, the max wait. A request that runs out of it builds the
+     * timeline without caching it, instead of starting another rebuild.
+     */
+    private List<TweetResponse> rebuildHomeTimeline(
+            ProfileResponse profile,
+            int size,
+            String timelineKey,
+            EntityName entityName,
+            Function4<String, Long, Long, Integer, List<TweetResponse>> obtainEntitiesFromDbFunc,
+            BiFunction<List<Long>, String, List<TweetResponse>> mapFunc
+    ) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(rebuildMaxWaitMs);
+        CompletableFuture<List<TweetResponse>> rebuild = new CompletableFuture<>();
+        CompletableFuture<List<TweetResponse>> inFlightRebuild = inFlightRebuilds.putIfAbsent(timelineKey, rebuild);
+        if (inFlightRebuild != null) {
+            log.info("{} homeTimeline is already being rebuilt, waiting for it", entityName.getName());
+            List<TweetResponse> homeTimeline;
+            try {
+                homeTimeline = inFlightRebuild.copy()
+                        .orTimeout(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)
+                        .join();
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof TimeoutException)) {
+                    throw e.getCause() instanceof RuntimeException cause ? cause : e;
                 }
+                log.warn("{} homeTimeline hasn't been rebuilt within {} ms, building it without caching", entityName.getName(), rebuildMaxWaitMs);
+                return buildHomeTimeline(profile, size, timelineKey, entityName, obtainEntitiesFromDbFunc, mapFunc, false);
             }
-            if (!lists.isEmpty()) {
-                homeTimeline = mergeKSortedLists(lists, 0, lists.size() - 1);
-                cacheService.cacheTimeline(mapEntitiesToIds(homeTimeline), timelineKey);
-                log.info("{} homeTimeline has been cached with size {}", entityName.getName(), homeTimeline.size());
-            } else {
-                homeTimeline = new LinkedList<>();
+            // the rebuild may have failed to cache its result
+            if (cacheService.getTimelineSize(timelineKey) != null) {
+                return getHomeTimelineFromCache(profile, size, timelineKey, mapFunc);
             }
+            return new ArrayList<>(homeTimeline);
         }
 
-        if (seenNumberOfEntities < homeTimeline.size()) {
-            homeTimeline = homeTimeline.subList(seenNumberOfEntities, Math.min(seenNumberOfEntities + (page.getPageSize() / 2), homeTimeline.size()));
+        try {
+            List<TweetResponse> homeTimeline = rebuildHomeTimelineUnderLease(profile, size, timelineKey, entityName, obtainEntitiesFromDbFunc, mapFunc, deadline);
+            rebuild.complete(List.copyOf(homeTimeline));
+            return homeTimeline;
+        } catch (RuntimeException e) {
+            rebuild.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightRebuilds.remove(timelineKey, rebuild);
         }
+    }
 
-        for (ProfileResponse celebrity : profileServiceClient.getFolloweesCelebrities(profile.getProfileId())) {
-            homeTimeline.addAll(getEntityUserTimeline(celebrity, page, entityName, obtainEntitiesFromDbFunc, mapFunc));
+    private List<TweetResponse> rebuildHomeTimelineUnderLease(
+            ProfileResponse profile,
+            int size,
+            String timelineKey,
+            EntityName entityName,
+            Function4<String, Long, Long, Integer, List<TweetResponse>> obtainEntitiesFromDbFunc,
+            BiFunction<List<Long>, String, List<TweetResponse>> mapFunc,
+            long deadline
+    ) {
+        String leaseToken = cacheService.tryAcquireRebuildLease(timelineKey, Duration.ofMillis(rebuildLeaseMs));
+        if (leaseToken == null) {
+            log.info("{} homeTimeline is being rebuilt by another instance, waiting for it", entityName.getName());
+            if (waitForRebuildLease(timelineKey, deadline) && cacheService.getTimelineSize(timelineKey) != null) {
+                return getHomeTimelineFromCache(profile, size, timelineKey, mapFunc);
+            }
+            log.warn("{} homeTimeline hasn't been cached by another instance, building it without caching", entityName.getName());
+            return buildHomeTimeline(profile, size, timelineKey, entityName, obtainEntitiesFromDbFunc, mapFunc, false);
         }
 
-        homeTimeline.sort((a,b) -> b.getCreationDate().compareTo(a.getCreationDate()));
+        try {
+            return buildHomeTimeline(profile, size, timelineKey, entityName, obtainEntitiesFromDbFunc, mapFunc, true);
+        } finally {
+            cacheService.releaseRebuildLease(timelineKey, leaseToken);
+        }
+    }
+
+    private List<TweetResponse> getHomeTimelineFromCache(
+            ProfileResponse profile,
+            int size,
+            String timelineKey,
+            BiFunction<List<Long>, String, List<TweetResponse>> mapFunc
+    ) {
+        List<TweetResponse> homeTimeline = mapIdsToEntities(cacheService.getTimelineFromCache(timelineKey, 0, size), profile.getEmail(), mapFunc);
+        homeTimeline.sort(TimelineUtil.NEWEST_FIRST_ENTITIES);
         return homeTimeline;
     }
 
-    private List<TweetResponse> mergeKSortedLists(List<List<TweetResponse>> lists, int l, int r) {
-        if (l > r) {
-            throw new IllegalArgumentException("left pointer should not be greater than right pointer");
-        } else if (l == r) {
-            return lists.get(l);
+    /**
+     * Waits until the rebuild lease is released, at most until the deadline in {@link System#nanoTime()}.
+     *
+     * @return true if the lease has been released in time
+     */
+    private boolean waitForRebuildLease(String timelineKey, long deadline) {
+        while (cacheService.isRebuildLeaseHeld(timelineKey)) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            try {
+                Thread.sleep(rebuildLeasePollMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds the home timeline from the first {@code size} entities of every followee, merged up to
+     * the max timeline size. A followee that has more entities has been cut off, and its older entities
+     * would be missing from the merge, so the merge is cut at the oldest entity of the followee that was
+     * cut off first. If {@code cacheResult} is set, it is cached, as complete if none of them has been cut off.
+     * If the timelines of some followees haven't been received, it is cached anyway, but only for a short
+     * time, so that it gets rebuilt soon instead of being rebuilt by every request.
+     */
+    private List<TweetResponse> buildHomeTimeline(
+            ProfileResponse profile,
+            int size,
+            String timelineKey,
+            EntityName entityName,
+            Function4<String, Long, Long, Integer, List<TweetResponse>> obtainEntitiesFromDbFunc,
+            BiFunction<List<Long>, String, List<TweetResponse>> mapFunc,
+            boolean cacheResult
+    ) {
+        List<ProfileResponse> followees = getFolloweesWithoutCelebrities(profile);
+        // one extra entity per followee tells whether its timeline has been cut off
+        List<List<TweetResponse>> lists = getEntityUserTimelines(
+                followees,
+                entityName,
+                followee -> getEntityUserTimeline(followee, PageRequest.of(0, 2 * (size + 1)), entityName, obtainEntitiesFromDbFunc, mapFunc)
+        );
+        if (lists.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        TweetResponse cutOffEntity = lists.stream()
+                .filter(list -> list.size() > size)
+                .map(list -> list.get(list.size() - 1))
+                .min(TimelineUtil.NEWEST_FIRST_ENTITIES)
+                .orElse(null);
+        List<TweetResponse> homeTimeline = timelineUtil.mergeSortedTimelines(lists, maxTimelineSize);
+        if (cutOffEntity != null) {
+            homeTimeline = homeTimeline.stream()
+                    .takeWhile(entity -> TimelineUtil.NEWEST_FIRST_ENTITIES.compare(entity, cutOffEntity) <= 0)
+                    .collect(Collectors.toCollection(ArrayList::new));
         }
 
-        int mid = l + (r - l) / 2;
-        List<TweetResponse> left = mergeKSortedLists(lists, l, mid);
-        List<TweetResponse> right = mergeKSortedLists(lists, mid + 1, r);
-        return mergeTwoSortedLists(left, right);
+        if (!cacheResult) {
+            return homeTimeline;
+        }
+        if (lists.size() == followees.size()) {
+            boolean complete = cutOffEntity == null && lists.stream().mapToInt(List::size).sum() <= maxTimelineSize;
+            cacheService.cacheTimeline(homeTimeline, timelineKey, complete);
+            log.info("{} homeTimeline has been cached with size {}", entityName.getName(), homeTimeline.size());
+        } else {
+            cacheService.cacheTimeline(homeTimeline, timelineKey, false, Duration.ofMillis(partialTimelineTtlMs));
+            log.warn("{} homeTimeline is partial ({} of {} followees), cached for {} ms",
+                    entityName.getName(), lists.size(), followees.size(), partialTimelineTtlMs);
+        }
+        return homeTimeline;
     }
 
-    private List<TweetResponse> mergeTwoSortedLists(List<TweetResponse> list1, List<TweetResponse> list2) {
-        List<TweetResponse> res = new LinkedList<>();
-        int i = 0, j = 0;
-        while (i < list1.size() && j < list2.size()) {
-            if (list1.get(i).getCreationDate().isAfter(list2.get(j).getCreationDate())) {
-                res.add(list1.get(i++));
-            } else {
-                res.add(list2.get(j++));
+    private List<ProfileResponse> getFolloweesWithoutCelebrities(ProfileResponse profile) {
+        return profileServiceClient.getFollowees(profile.getProfileId())
+                .stream()
+                .filter(followee -> followee.getFollowers() < 10000)
+                .toList();
+    }
+
+    /**
+     * Fetches the user timelines with at most the max concurrent fetches at a time, so a user following
+     * many profiles doesn't take over the shared executor. Fetches that haven't been started or finished
+     * by the rebuild timeout are skipped.
+     */
+    private List<List<TweetResponse>> getEntityUserTimelines(
+            List<ProfileResponse> profiles,
+            EntityName entityName,
+            Function<ProfileResponse, List<TweetResponse>> userTimelineFunc
+    ) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(rebuildTimeoutMs);
+        Semaphore fetchPermits = new Semaphore(maxConcurrentFetches);
+        List<CompletableFuture<List<TweetResponse>>> futures = new ArrayList<>(profiles.size());
+        try {
+            for (ProfileResponse profile : profiles) {
+                if (!fetchPermits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    log.warn("{} userTimelines were not fetched within {} ms", entityName.getName(), rebuildTimeoutMs);
+                    break;
+                }
+                CompletableFuture<List<TweetResponse>> future = supplyUserTimeline(profile, userTimelineFunc);
+                future.whenComplete((timeline, e) -> fetchPermits.release());
+                futures.add(future);
             }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("{} userTimelines were not received within {} ms", entityName.getName(), rebuildTimeoutMs);
+        } catch (ExecutionException e) {
+            log.warn("{} userTimeline couldn't be received", entityName.getName(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
 
-        while (i < list1.size()) {
-            res.add(list1.get(i++));
-        }
-        while (j < list2.size()) {
-            res.add(list2.get(j++));
+        List<List<TweetResponse>> timelines = new ArrayList<>(futures.size());
+        for (CompletableFuture<List<TweetResponse>> future : futures) {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                timelines.add(future.join());
+            } else {
+                // skips fetches that are still queued, running ones aren't interrupted and their results are dropped
+                future.cancel(false);
+            }
         }
+        return timelines;
+    }
 
-        return res;
+    /**
+     * A fetch rejected by the saturated executor fails like a timed out one, so the deadline
+     * holds under load and the partial result is only cached for a short time.
+     */
+    private CompletableFuture<List<TweetResponse>> supplyUserTimeline(
+            ProfileResponse profile,
+            Function<ProfileResponse, List<TweetResponse>> userTimelineFunc
+    ) {
+        try {
+            return CompletableFuture.supplyAsync(() -> userTimelineFunc.apply(profile), timelineTaskExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
     }
 
-    private List<TweetResponse> mapIdsToEntities(List<Long> idList, String loggedInUser, BiFunction<Long, String, TweetResponse> mapFunc) {
-        if (idList == null) {
-            return null;
+    private <T> List<T> getPageOfTimeline(List<T> timeline, int seenNumberOfEntities, int pageSize) {
+        if (seenNumberOfEntities < timeline.size()) {
+            return timeline.subList(seenNumberOfEntities, Math.min(seenNumberOfEntities + pageSize, timeline.size()));
         }
-        return idList.stream()
-                .filter(Objects::nonNull)
-                .map(id -> mapFunc.apply(id, loggedInUser))
-                .collect(Collectors.toList());
+        return timeline;
     }
 
-    private List<Long> mapEntitiesToIds(@NonNull List<TweetResponse> entities) {
-        return entities.stream()
-                .map(TweetResponse::getId)
-                .collect(Collectors.toList());
+    private List<TweetResponse> mapPositionsToEntities(
+            List<TimelinePosition> positions,
+            String loggedInUser,
+            BiFunction<List<Long>, String, List<TweetResponse>> mapFunc
+    ) {
+        List<TweetResponse> entities = mapIdsToEntities(
+                positions.stream().map(TimelinePosition::entityId).toList(),
+                loggedInUser,
+                mapFunc
+        );
+        entities.sort(TimelineUtil.NEWEST_FIRST_ENTITIES);
+        return entities;
+    }
+
+    private List<TweetResponse> mapIdsToEntities(List<Long> idList, String loggedInUser, BiFunction<List<Long>, String, List<TweetResponse>> mapFunc) {
+        List<Long> ids = idList.stream()
+                .filter(Objects::nonNull)
+                .toList();
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(mapFunc.apply(ids, loggedInUser));
     }
 }
@@ -0,0 +1,131 @@
+package com.example.timeline.service;
+
+import com.example.timeline.client.ProfileServiceClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the ids of entities that fanout-service has added to the home timeline of a connected user.
+ * The Redis channel of a user is subscribed only while the user has at least one connection to this
+ * instance. Every connection buffers a bounded number of updates, so a slow client can't hold
+ * memory: updates it can't keep up with are dropped, and it catches up with the since endpoint.
+ */
+@Service
+@Slf4j
+public class TimelineUpdateService {
+
+    private static final String TIMELINE_UPDATES_CHANNEL_PREFIX = "timeline_updates:";
+
+    private final RedisMessageListenerContainer timelineUpdatesListenerContainer;
+    private final ProfileServiceClient profileServiceClient;
+    private final Map<String, ProfileSubscription> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger connections;
+    private final Counter droppedUpdates;
+    private final int bufferSize;
+    private final Duration heartbeatInterval;
+    private final Duration maxConnectionDuration;
+
+    public TimelineUpdateService(
+            RedisMessageListenerContainer timelineUpdatesListenerContainer,
+            ProfileServiceClient profileServiceClient,
+            MeterRegistry meterRegistry,
+            @Value("${timeline.push.buffer-size:256}") int bufferSize,
+            @Value("${timeline.push.heartbeat-interval-ms:30000}") long heartbeatIntervalMs,
+            @Value("${timeline.push.max-connection-ms:600000}") long maxConnectionMs
+    ) {
+        this.timelineUpdatesListenerContainer = timelineUpdatesListenerContainer;
+        this.profileServiceClient = profileServiceClient;
+        this.connections = meterRegistry.gauge("timeline.push.connections", new AtomicInteger());
+        this.droppedUpdates = meterRegistry.counter("timeline.push.updates.dropped");
+        this.bufferSize = bufferSize;
+        this.heartbeatInterval = Duration.ofMillis(heartbeatIntervalMs);
+        this.maxConnectionDuration = Duration.ofMillis(maxConnectionMs);
+    }
+
+    /**
+     * Streams an event per new entity of the home timeline, named after the entity type with the entity id
+     * as data, plus heartbeat comments. The stream is closed after the max connection duration and
+     * clients are expected to reconnect.
+     */
+    public Flux<ServerSentEvent<String>> streamHomeTimelineUpdates(String loggedInUser, String profileId) {
+        String subscriberId = profileId != null ? profileId : profileServiceClient.getProfileIdByLoggedInUser(loggedInUser);
+
+        Flux<ServerSentEvent<String>> updates = Flux.defer(() -> {
+            Sinks.Many<String> sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<String>get(bufferSize).get());
+            subscribe(subscriberId, sink);
+            return sink.asFlux().doFinally(signal -> unsubscribe(subscriberId, sink));
+        }).map(this::toEvent);
+        Flux<ServerSentEvent<String>> heartbeats = Flux.interval(heartbeatInterval)
+                .map(tick -> ServerSentEvent.<String>builder().comment("heartbeat").build());
+
+        return Flux.merge(updates, heartbeats)
+                .take(maxConnectionDuration);
+    }
+
+    private void subscribe(String profileId, Sinks.Many<String> sink) {
+        subscriptions.compute(profileId, (id, subscription) -> {
+            if (subscription == null) {
+                subscription = new ProfileSubscription();
+                timelineUpdatesListenerContainer.addMessageListener(subscription, new ChannelTopic(TIMELINE_UPDATES_CHANNEL_PREFIX + id));
+            }
+            subscription.sinks.add(sink);
+            return subscription;
+        });
+        connections.incrementAndGet();
+    }
+
+    private void unsubscribe(String profileId, Sinks.Many<String> sink) {
+        subscriptions.computeIfPresent(profileId, (id, subscription) -> {
+            subscription.sinks.remove(sink);
+            if (subscription.sinks.isEmpty()) {
+                timelineUpdatesListenerContainer.removeMessageListener(subscription, new ChannelTopic(TIMELINE_UPDATES_CHANNEL_PREFIX + id));
+                return null;
+            }
+            return subscription;
+        });
+        connections.decrementAndGet();
+    }
+
+    /**
+     * Messages are sent by fanout-service as {@code entityName:entityId}.
+     */
+    private ServerSentEvent<String> toEvent(String message) {
+        int separator = message.indexOf(':');
+        return ServerSentEvent.builder(message.substring(separator + 1))
+                .event(message.substring(0, separator))
+                .build();
+    }
+
+    private final class ProfileSubscription implements MessageListener {
+
+        private final Set<Sinks.Many<String>> sinks = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public synchronized void onMessage(Message message, byte[] pattern) {
+            String update = new String(message.getBody(), StandardCharsets.UTF_8);
+            for (Sinks.Many<String> sink : sinks) {
+                if (sink.tryEmitNext(update).isFailure()) {
+                    droppedUpdates.increment();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.timeline.util;
+
+import com.example.timeline.dto.response.TweetResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+@Component
+public class TimelineUtil {
+
+    public static final Comparator<TweetResponse> NEWEST_FIRST_ENTITIES = Comparator
+            .comparing(TweetResponse::getCreationDate)
+            .thenComparing(TweetResponse::getId)
+            .reversed();
+
+    private static final Comparator<TimelineCursor> NEWEST_FIRST =
+            (a, b) -> NEWEST_FIRST_ENTITIES.compare(a.current(), b.current());
+
+    public List<TweetResponse> mergeSortedTimelines(List<List<TweetResponse>> timelines) {
+        return mergeSortedTimelines(timelines, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Merges timelines sorted by creation date (newest first) into one sorted timeline,
+     * stopping as soon as {@code limit} entities have been produced.
+     */
+    public List<TweetResponse> mergeSortedTimelines(List<List<TweetResponse>> timelines, int limit) {
+        PriorityQueue<TimelineCursor> heap = new PriorityQueue<>(Math.max(1, timelines.size()), NEWEST_FIRST);
+        int total = 0;
+        for (List<TweetResponse> timeline : timelines) {
+            if (!timeline.isEmpty()) {
+                heap.add(new TimelineCursor(timeline instanceof RandomAccess ? timeline : new ArrayList<>(timeline)));
+                total += timeline.size();
+            }
+        }
+
+        List<TweetResponse> merged = new ArrayList<>(Math.min(limit, total));
+        while (!heap.isEmpty() && merged.size() < limit) {
+            TimelineCursor cursor = heap.poll();
+            merged.add(cursor.current());
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static final class TimelineCursor {
+
+        private final List<TweetResponse> timeline;
+        private int position;
+
+        private TimelineCursor(List<TweetResponse> timeline) {
+            this.timeline = timeline;
+        }
+
+        private TweetResponse current() {
+            return timeline.get(position);
+        }
+
+        private boolean advance() {
+            return ++position < timeline.size();
+        }
+    }
+}
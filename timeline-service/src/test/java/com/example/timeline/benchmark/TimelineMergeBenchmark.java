@@ -0,0 +1,111 @@
+package com.example.timeline.benchmark;
+
+import com.example.timeline.dto.response.TweetResponse;
+import com.example.timeline.util.TimelineUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the heap based k-way merge used to rebuild home timelines with the
+ * recursive pairwise merge it replaced.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.timeline.benchmark.TimelineMergeBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimelineMergeBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int followees;
+
+    @Param({"20"})
+    private int pageSize;
+
+    private final TimelineUtil timelineUtil = new TimelineUtil();
+    private List<List<TweetResponse>> timelines;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        timelines = new ArrayList<>(followees);
+        for (int i = 0; i < followees; i++) {
+            List<TweetResponse> timeline = new ArrayList<>(pageSize);
+            LocalDateTime creationDate = now;
+            for (int j = 0; j < pageSize; j++) {
+                creationDate = creationDate.minusSeconds(1 + random.nextInt(3600));
+                timeline.add(TweetResponse.builder()
+                        .id((long) i * pageSize + j)
+                        .creationDate(creationDate)
+                        .build());
+            }
+            timelines.add(timeline);
+        }
+    }
+
+    @Benchmark
+    public List<TweetResponse> heapMerge() {
+        return timelineUtil.mergeSortedTimelines(timelines, pageSize);
+    }
+
+    @Benchmark
+    public List<TweetResponse> heapMergeUnlimited() {
+        return timelineUtil.mergeSortedTimelines(timelines);
+    }
+
+    @Benchmark
+    public List<TweetResponse> recursiveMerge() {
+        return mergeKSortedLists(timelines, 0, timelines.size() - 1);
+    }
+
+    private static List<TweetResponse> mergeKSortedLists(List<List<TweetResponse>> lists, int l, int r) {
+        if (l == r) {
+            return lists.get(l);
+        }
+
+        int mid = l + (r - l) / 2;
+        List<TweetResponse> left = mergeKSortedLists(lists, l, mid);
+        List<TweetResponse> right = mergeKSortedLists(lists, mid + 1, r);
+        return mergeTwoSortedLists(left, right);
+    }
+
+    private static List<TweetResponse> mergeTwoSortedLists(List<TweetResponse> list1, List<TweetResponse> list2) {
+        List<TweetResponse> res = new LinkedList<>();
+        int i = 0, j = 0;
+        while (i < list1.size() && j < list2.size()) {
+            if (list1.get(i).getCreationDate().isAfter(list2.get(j).getCreationDate())) {
+                res.add(list1.get(i++));
+            } else {
+                res.add(list2.get(j++));
+            }
+        }
+
+        while (i < list1.size()) {
+            res.add(list1.get(i++));
+        }
+        while (j < list2.size()) {
+            res.add(list2.get(j++));
+        }
+
+        return res;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TimelineMergeBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
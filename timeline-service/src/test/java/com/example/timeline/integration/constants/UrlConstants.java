@@ -13,7 +13,8 @@ public enum UrlConstants {
     USER_TIMELINE_URL_FOR_USER("/api/v1/timeline/user/%s"),
     USER_REPLIES_TIMELINE_URL("/api/v1/timeline/user-replies"),
     USER_REPLIES_TIMELINE_URL_FOR_USER("/api/v1/timeline/user-replies/%s"),
-    HOME_TIMELINE_URL("/api/v1/timeline/home");
+    HOME_TIMELINE_URL("/api/v1/timeline/home"),
+    HOME_TIMELINE_UPDATES_URL("/api/v1/timeline/home/since");
 
     private final String constant;
 }
@@ -3,33 +3,46 @@ package com.example.timeline.integration.controller;
 import com.example.timeline.client.ProfileServiceClient;
 import com.example.timeline.client.TweetServiceClient;
 import com.example.timeline.constants.EntityName;
+import com.example.timeline.dto.TimelinePosition;
 import com.example.timeline.dto.response.ProfileResponse;
 import com.example.timeline.dto.response.TweetResponse;
 import com.example.timeline.integration.IntegrationTestBase;
 import com.example.timeline.integration.constants.TimelineCachePrefix;
 import com.example.timeline.service.CacheService;
+import com.example.timeline.util.TimelineUtil;
+import com.jayway.jsonpath.JsonPath;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang.math.RandomUtils;
 import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.time.LocalDateTime;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.example.timeline.constants.EntityName.*;
 import static com.example.timeline.integration.constants.TimelineCachePrefix.HOME_TIMELINE_PREFIX;
 import static com.example.timeline.integration.constants.TimelineCachePrefix.USER_TIMELINE_PREFIX;
 import static com.example.timeline.integration.constants.UrlConstants.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.testcontainers.utility.Base58.randomString;
 
 @AutoConfigureMockMvc
@@ -39,11 +52,16 @@ public class TimelineControllerTest extends IntegrationTestBase {
 
     private final MockMvc mockMvc;
     private final CacheService cacheService;
+    private final RedisTemplate<String, String> redisTemplate;
     @MockBean
     private final TweetServiceClient tweetServiceClient;
     @MockBean
     private final ProfileServiceClient profileServiceClient;
 
+    private final Map<Long, TweetResponse> tweetsById = new HashMap<>();
+    private final Map<Long, TweetResponse> retweetsById = new HashMap<>();
+    private final Map<Long, TweetResponse> repliesById = new HashMap<>();
+    private LocalDateTime lastCreationDate = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
 
     @Test
     public void getUserTimelineTest() throws Exception {
@@ -75,6 +93,20 @@ public class TimelineControllerTest extends IntegrationTestBase {
         getTimelinesFromCacheAndExpectSuccess(USER_TIMELINE_PREFIX, Map.of(REPLIES, 10, RETWEETS, 10), profile);
     }
 
+    @Test
+    public void getUserTimelineCachedAsLegacyListTest() throws Exception {
+        ProfileResponse profile = buildDefaultProfile(randomString(10), randomString(5));
+        buildTweetsTimeline(10, profile);
+        buildRetweetsTimeline(10, profile);
+        for (EntityName entityName : List.of(TWEETS, RETWEETS)) {
+            redisTemplate.opsForValue().set(USER_TIMELINE_PREFIX.getPrefix().formatted(entityName.getName()) + profile.getProfileId(), "[1,2,3]");
+        }
+
+        getTimelineAndExpectSuccess(profile, USER_TIMELINE_URL.getConstant(), 0, 20, 20);
+
+        getTimelinesFromCacheAndExpectSuccess(USER_TIMELINE_PREFIX, Map.of(TWEETS, 10, RETWEETS, 10), profile);
+    }
+
     @Test
     public void getHomeTimelineTest() throws Exception {
         ProfileResponse follower = buildDefaultProfile(randomString(10), randomString(5));
@@ -95,10 +127,202 @@ public class TimelineControllerTest extends IntegrationTestBase {
         getTimelineAndExpectSuccess(follower, HOME_TIMELINE_URL.getConstant(), 0, 20, 70);
         getTimelineAndExpectSuccess(follower, HOME_TIMELINE_URL.getConstant(), 0, 100, 150);
         getTimelineAndExpectSuccess(follower, HOME_TIMELINE_URL.getConstant(), 0, 200, 150);
+        getTimelineAndExpectSuccess(follower, HOME_TIMELINE_URL.getConstant(), 1, 20, 20);
 
         getTimelinesFromCacheAndExpectSuccess(HOME_TIMELINE_PREFIX, Map.of(TWEETS, 50, RETWEETS, 50), follower);
     }
 
+    @Test
+    public void concurrentHomeTimelineRebuildTest() throws Exception {
+        ProfileResponse follower = buildDefaultProfile(randomString(10), randomString(5));
+        List<ProfileResponse> followees = buildFolloweesForProfile(follower, 5, 1);
+        for (ProfileResponse followee : followees) {
+            buildTweetsTimeline(2, followee);
+            buildRetweetsTimeline(2, followee);
+        }
+        when(profileServiceClient.getFollowees(follower.getProfileId()))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(300);
+                    return followees;
+                });
+
+        // page, size and expected size of the requests
+        List<int[]> requests = List.of(
+                new int[]{0, 20, 20}, new int[]{0, 6, 6}, new int[]{1, 10, 10}, new int[]{0, 20, 20},
+                new int[]{0, 6, 6}, new int[]{1, 10, 10}, new int[]{0, 20, 20}, new int[]{1, 4, 4}
+        );
+        ExecutorService executor = Executors.newFixedThreadPool(requests.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int[] request : requests) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                getTimelineAndExpectSuccess(follower, HOME_TIMELINE_URL.getConstant(), request[0], request[1], request[2]);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        verify(profileServiceClient, times(2)).getFollowees(follower.getProfileId());
+        getTimelinesFromCacheAndExpectSuccess(HOME_TIMELINE_PREFIX, Map.of(TWEETS, 10, RETWEETS, 10), follower);
+    }
+
+    @Test
+    public void getUserTimelineWithCursorsTest() throws Exception {
+        ProfileResponse profile = buildDefaultProfile(randomString(10), randomString(5));
+        buildTweetsTimeline(10, profile);
+        buildRetweetsTimeline(10, profile);
+
+        Set<Long> entityIds = new HashSet<>();
+        String maxId = null;
+        for (int size : List.of(6, 6, 6, 2)) {
+            MvcResult result = getTimelineWithCursorAndExpectSuccess(profile, USER_TIMELINE_URL.getConstant(), maxId, 6, size);
+            List<Number> ids = JsonPath.read(result.getResponse().getContentAsString(), "$[*].id");
+            ids.forEach(id -> entityIds.add(id.longValue()));
+            maxId = result.getResponse().getHeader("X-Next-Max-Id");
+        }
+        assertEquals(20, entityIds.size());
+
+        getTimelineWithCursorAndExpectSuccess(profile, USER_TIMELINE_URL.getConstant(), maxId, 6, 0);
+    }
+
+    @Test
+    public void getCompleteHomeTimelineWithCursorsTest() throws Exception {
+        ProfileResponse follower = buildDefaultProfile(randomString(10), randomString(5));
+        List<ProfileResponse> followees = buildFolloweesForProfile(follower, 5, 1);
+        for (ProfileResponse followee : followees) {
+            buildTweetsTimeline(2, followee);
+            buildRetweetsTimeline(2, followee);
+        }
+
+        MvcResult result = getTimelineWithCursorAndExpectSuccess(follower, HOME_TIMELINE_URL.getConstant(), null, 6, 6);
+        String maxId = result.getResponse().getHeader("X-Next-Max-Id");
+        assertTrue(cacheService.isTimelineComplete(HOME_TIMELINE_PREFIX.getPrefix().formatted(TWEETS.getName()) + follower.getProfileId()));
+        assertTrue(cacheService.isTimelineComplete(HOME_TIMELINE_PREFIX.getPrefix().formatted(RETWEETS.getName()) + follower.getProfileId()));
+
+        clearInvocations(profileServiceClient, tweetServiceClient);
+        for (int size : List.of(6, 6, 2)) {
+            result = getTimelineWithCursorAndExpectSuccess(follower, HOME_TIMELINE_URL.getConstant(), maxId, 6, size);
+            maxId = result.getResponse().getHeader("X-Next-Max-Id");
+        }
+        getTimelineWithCursorAndExpectSuccess(follower, HOME_TIMELINE_URL.getConstant(), maxId, 6, 0);
+
+        verify(profileServiceClient, never()).getFollowees(anyString());
+        verify(tweetServiceClient, never()).getAllTweetsForUser(anyString(), any(), any(), anyInt());
+        verify(tweetServiceClient, never()).getAllRetweetsForUser(anyString(), any(), any(), anyInt());
+    }
+
+    @Test
+    public void getTruncatedHomeTimelineWithCursorsTest() throws Exception {
+        ProfileResponse follower = buildDefaultProfile(randomString(10), randomString(5));
+        ProfileResponse followee = buildFolloweesForProfile(follower, 1, 1).get(0);
+        buildTweetsTimeline(30, followee);
+        buildRetweetsTimeline(0, followee);
+
+        Set<Long> entityIds = new HashSet<>();
+        String maxId = null;
+        for (int i = 0; i < 5; i++) {
+            MvcResult result = getTimelineWithCursorAndExpectSuccess(follower, HOME_TIMELINE_URL.getConstant(), maxId, 6, 6);
+            List<Number> ids = JsonPath.read(result.getResponse().getContentAsString(), "$[*].id");
+            ids.forEach(id -> entityIds.add(id.longValue()));
+            maxId = result.getResponse().getHeader("X-Next-Max-Id");
+        }
+        assertEquals(30, entityIds.size());
+        assertFalse(cacheService.isTimelineComplete(HOME_TIMELINE_PREFIX.getPrefix().formatted(TWEETS.getName()) + follower.getProfileId()));
+
+        getTimelineWithCursorAndExpectSuccess(follower, HOME_TIMELINE_URL.getConstant(), maxId, 6, 0);
+    }
+
+    @Test
+    public void getHomeTimelineOfFolloweesWithDifferentRatesWithCursorsTest() throws Exception {
+        ProfileResponse follower = buildDefaultProfile(randomString(10), randomString(5));
+        List<ProfileResponse> followees = buildFolloweesForProfile(follower, 2, 1);
+        ProfileResponse slowFollowee = followees.get(0);
+        ProfileResponse fastFollowee = followees.get(1);
+        buildTweetsTimeline(10, slowFollowee);
+        buildTweetsTimeline(30, fastFollowee);
+        buildRetweetsTimeline(0, slowFollowee);
+        buildRetweetsTimeline(0, fastFollowee);
+
+        List<Long> expectedIds = tweetsById.values().stream()
+                .filter(tweet -> followees.contains(tweet.getProfile()))
+                .sorted(TimelineUtil.NEWEST_FIRST_ENTITIES)
+                .map(TweetResponse::getId)
+                .toList();
+
+        List<Long> entityIds = new ArrayList<>();
+        String maxId = null;
+        for (int size : List.of(6, 6, 6, 6, 6, 6, 4)) {
+            MvcResult result = getTimelineWithCursorAndExpectSuccess(follower, HOME_TIMELINE_URL.getConstant(), maxId, 6, size);
+            List<Number> ids = JsonPath.read(result.getResponse().getContentAsString(), "$[*].id");
+            ids.forEach(id -> entityIds.add(id.longValue()));
+            maxId = result.getResponse().getHeader("X-Next-Max-Id");
+        }
+        assertEquals(expectedIds, entityIds);
+
+        getTimelineWithCursorAndExpectSuccess(follower, HOME_TIMELINE_URL.getConstant(), maxId, 6, 0);
+    }
+
+    @Test
+    public void getHomeTimelineUpdatesTest() throws Exception {
+        ProfileResponse follower = buildDefaultProfile(randomString(10), randomString(5));
+        List<ProfileResponse> followees = buildFolloweesForProfile(follower, 5, 1);
+        for (ProfileResponse followee : followees) {
+            buildTweetsTimeline(2, followee);
+            buildRetweetsTimeline(2, followee);
+        }
+
+        MvcResult result = getTimelineWithCursorAndExpectSuccess(follower, HOME_TIMELINE_URL.getConstant(), null, 20, 20);
+        String sinceId = result.getResponse().getHeader("X-Next-Since-Id");
+
+        clearInvocations(tweetServiceClient);
+        getTimelineUpdatesAndExpectSuccess(follower, sinceId, 0);
+        verify(tweetServiceClient, never()).getTweets(anyList(), anyString());
+        verify(tweetServiceClient, never()).getRetweets(anyList(), anyString());
+
+        TweetResponse newTweet = buildDefaultTweet(RandomUtils.nextLong(), followees.get(0));
+        redisTemplate.opsForZSet().add(
+                HOME_TIMELINE_PREFIX.getPrefix().formatted(TWEETS.getName()) + follower.getProfileId(),
+                newTweet.getId().toString(),
+                TimelinePosition.of(newTweet).timestamp()
+        );
+        result = getTimelineUpdatesAndExpectSuccess(follower, sinceId, 1);
+        List<Number> ids = JsonPath.read(result.getResponse().getContentAsString(), "$[*].id");
+        assertEquals(newTweet.getId(), ids.get(0).longValue());
+    }
+
+    private MvcResult getTimelineUpdatesAndExpectSuccess(ProfileResponse profile, String sinceId, int numberOfEntities) throws Exception {
+        return mockMvc.perform(get(HOME_TIMELINE_UPDATES_URL.getConstant())
+                        .header("loggedInUser", profile.getEmail())
+                        .param("since_id", sinceId)
+                )
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.length()").value(numberOfEntities)
+                )
+                .andReturn();
+    }
+
+    private MvcResult getTimelineWithCursorAndExpectSuccess(ProfileResponse profile, String url, String maxId, int size, int numberOfEntities) throws Exception {
+        MockHttpServletRequestBuilder request = get(url)
+                .header("loggedInUser", profile.getEmail())
+                .param("size", Integer.toString(size));
+        if (maxId != null) {
+            request.param("max_id", maxId);
+        }
+
+        return mockMvc.perform(request)
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.length()").value(numberOfEntities)
+                )
+                .andReturn();
+    }
+
     private void getTimelineAndExpectSuccess(ProfileResponse profile, String url, int page, int size, int numberOfEntities) throws Exception {
         mockMvc.perform(get(url)
                         .header("loggedInUser", profile.getEmail())
@@ -157,8 +381,8 @@ public class TimelineControllerTest extends IntegrationTestBase {
             repliesForUser.add(buildDefaultReply(RandomUtils.nextLong(), profile, replyTo));
         }
 
-        when(tweetServiceClient.getAllRepliesForUser(eq(profile.getProfileId()), anyInt(), anyInt()))
-                .thenReturn(repliesForUser);
+        when(tweetServiceClient.getAllRepliesForUser(eq(profile.getProfileId()), any(), any(), anyInt()))
+                .thenAnswer(invocation -> getEntitiesBefore(invocation, repliesForUser));
     }
 
     private void buildRetweetsTimeline(int retweets, ProfileResponse profile) {
@@ -172,8 +396,8 @@ public class TimelineControllerTest extends IntegrationTestBase {
             retweetsForUser.add(buildDefaultRetweet(RandomUtils.nextLong(), profile, retweetTo));
         }
 
-        when(tweetServiceClient.getAllRetweetsForUser(eq(profile.getProfileId()), anyInt(), anyInt()))
-                .thenReturn(retweetsForUser);
+        when(tweetServiceClient.getAllRetweetsForUser(eq(profile.getProfileId()), any(), any(), anyInt()))
+                .thenAnswer(invocation -> getEntitiesBefore(invocation, retweetsForUser));
     }
 
     private void buildTweetsTimeline(int tweets, ProfileResponse profile) {
@@ -182,8 +406,8 @@ public class TimelineControllerTest extends IntegrationTestBase {
             tweetsForUser.add(buildDefaultTweet(RandomUtils.nextLong(), profile));
         }
 
-        when(tweetServiceClient.getAllTweetsForUser(eq(profile.getProfileId()), anyInt(), anyInt()))
-                .thenReturn(tweetsForUser);
+        when(tweetServiceClient.getAllTweetsForUser(eq(profile.getProfileId()), any(), any(), anyInt()))
+                .thenAnswer(invocation -> getEntitiesBefore(invocation, tweetsForUser));
     }
 
     private ProfileResponse buildDefaultProfile(String id, String email) {
@@ -210,11 +434,12 @@ public class TimelineControllerTest extends IntegrationTestBase {
                 .profile(profile)
                 .text(randomString(10))
                 .replyTo(replyTo)
-                .creationDate(LocalDateTime.now())
+                .creationDate(nextCreationDate())
                 .build();
 
-        when(tweetServiceClient.getReply(eq(id), anyString()))
-                .thenReturn(reply);
+        repliesById.put(id, reply);
+        when(tweetServiceClient.getReplies(anyList(), anyString()))
+                .thenAnswer(invocation -> getEntitiesByIds(invocation, repliesById));
 
         return reply;
     }
@@ -225,11 +450,12 @@ public class TimelineControllerTest extends IntegrationTestBase {
                 .profile(profile)
                 .text(randomString(10))
                 .retweetTo(retweetTo)
-                .creationDate(LocalDateTime.now())
+                .creationDate(nextCreationDate())
                 .build();
 
-        when(tweetServiceClient.getRetweet(eq(id), anyString()))
-                .thenReturn(retweet);
+        retweetsById.put(id, retweet);
+        when(tweetServiceClient.getRetweets(anyList(), anyString()))
+                .thenAnswer(invocation -> getEntitiesByIds(invocation, retweetsById));
 
         return retweet;
     }
@@ -239,12 +465,39 @@ public class TimelineControllerTest extends IntegrationTestBase {
                 .id(id)
                 .profile(profile)
                 .text(randomString(10))
-                .creationDate(LocalDateTime.now())
+                .creationDate(nextCreationDate())
                 .build();
 
-        when(tweetServiceClient.getTweet(eq(id), anyString()))
-                .thenReturn(tweet);
+        tweetsById.put(id, tweet);
+        when(tweetServiceClient.getTweets(anyList(), anyString()))
+                .thenAnswer(invocation -> getEntitiesByIds(invocation, tweetsById));
 
         return tweet;
     }
+
+    private LocalDateTime nextCreationDate() {
+        lastCreationDate = lastCreationDate.plusSeconds(1);
+        return lastCreationDate;
+    }
+
+    private List<TweetResponse> getEntitiesBefore(InvocationOnMock invocation, List<TweetResponse> entities) {
+        Long beforeTimestamp = invocation.getArgument(1);
+        Long beforeId = invocation.getArgument(2);
+        int size = invocation.getArgument(3);
+        TimelinePosition before = beforeId == null ? null : new TimelinePosition(beforeTimestamp, beforeId);
+
+        return entities.stream()
+                .sorted(TimelineUtil.NEWEST_FIRST_ENTITIES)
+                .filter(entity -> before == null || TimelinePosition.of(entity).isOlderThan(before))
+                .limit(size)
+                .toList();
+    }
+
+    private List<TweetResponse> getEntitiesByIds(InvocationOnMock invocation, Map<Long, TweetResponse> entitiesById) {
+        List<Long> ids = invocation.getArgument(0);
+        return ids.stream()
+                .map(entitiesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
 }
@@ -0,0 +1,171 @@
+package com.example.timeline.service;
+
+import com.example.timeline.client.ProfileServiceClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class TimelineUpdateServiceTest {
+
+    private static final String PROFILE_ID = "profile id";
+    private static final ChannelTopic PROFILE_TOPIC = new ChannelTopic("timeline_updates:" + PROFILE_ID);
+
+    private final RedisMessageListenerContainer listenerContainer = mock(RedisMessageListenerContainer.class);
+    private final ProfileServiceClient profileServiceClient = mock(ProfileServiceClient.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void cancelledStreamRemovesListenerTest() {
+        TimelineUpdateService service = buildService(256, 30_000, 600_000);
+        List<ServerSentEvent<String>> events = new CopyOnWriteArrayList<>();
+
+        Disposable connection = service.streamHomeTimelineUpdates("user", PROFILE_ID).subscribe(events::add);
+        MessageListener listener = captureListener();
+        assertEquals(1, getConnections());
+
+        publish(listener, "tweets:5");
+        publish(listener, "retweets:7");
+
+        assertEquals(2, events.size());
+        assertEquals("tweets", events.get(0).event());
+        assertEquals("5", events.get(0).data());
+        assertEquals("retweets", events.get(1).event());
+        assertEquals("7", events.get(1).data());
+
+        connection.dispose();
+
+        verify(listenerContainer).removeMessageListener(listener, PROFILE_TOPIC);
+        assertEquals(0, getConnections());
+    }
+
+    @Test
+    public void connectionsShareListenerTest() {
+        TimelineUpdateService service = buildService(256, 30_000, 600_000);
+        List<ServerSentEvent<String>> firstEvents = new CopyOnWriteArrayList<>();
+        List<ServerSentEvent<String>> secondEvents = new CopyOnWriteArrayList<>();
+
+        Disposable firstConnection = service.streamHomeTimelineUpdates("user", PROFILE_ID).subscribe(firstEvents::add);
+        Disposable secondConnection = service.streamHomeTimelineUpdates("user", PROFILE_ID).subscribe(secondEvents::add);
+        MessageListener listener = captureListener();
+        assertEquals(2, getConnections());
+
+        publish(listener, "tweets:5");
+        firstConnection.dispose();
+        publish(listener, "tweets:6");
+
+        assertEquals(1, firstEvents.size());
+        assertEquals(2, secondEvents.size());
+        assertEquals(1, getConnections());
+        verify(listenerContainer, never()).removeMessageListener(any(MessageListener.class), any(ChannelTopic.class));
+
+        secondConnection.dispose();
+
+        verify(listenerContainer).removeMessageListener(listener, PROFILE_TOPIC);
+        assertEquals(0, getConnections());
+    }
+
+    @Test
+    public void loggedInUserProfileIdTest() {
+        when(profileServiceClient.getProfileIdByLoggedInUser("user")).thenReturn(PROFILE_ID);
+        TimelineUpdateService service = buildService(256, 30_000, 600_000);
+
+        service.streamHomeTimelineUpdates("user", null).subscribe().dispose();
+
+        verify(listenerContainer).addMessageListener(any(MessageListener.class), eq(PROFILE_TOPIC));
+        verify(listenerContainer).removeMessageListener(any(MessageListener.class), eq(PROFILE_TOPIC));
+    }
+
+    @Test
+    public void slowConnectionDropsUpdatesTest() {
+        TimelineUpdateService service = buildService(1, 30_000, 600_000);
+        BaseSubscriber<ServerSentEvent<String>> slowClient = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(org.reactivestreams.Subscription subscription) {
+            }
+        };
+
+        service.streamHomeTimelineUpdates("user", PROFILE_ID).subscribe(slowClient);
+        MessageListener listener = captureListener();
+        int updates = 100;
+        for (int i = 0; i < updates; i++) {
+            publish(listener, "tweets:" + i);
+        }
+
+        double dropped = meterRegistry.get("timeline.push.updates.dropped").counter().count();
+        assertTrue(dropped > 0);
+        assertTrue(dropped < updates);
+
+        slowClient.dispose();
+
+        assertEquals(0, getConnections());
+    }
+
+    @Test
+    public void heartbeatTest() {
+        TimelineUpdateService service = buildService(256, 50, 600_000);
+
+        ServerSentEvent<String> heartbeat = service.streamHomeTimelineUpdates("user", PROFILE_ID)
+                .blockFirst(Duration.ofSeconds(5));
+
+        assertNotNull(heartbeat);
+        assertEquals("heartbeat", heartbeat.comment());
+        assertNull(heartbeat.data());
+        verify(listenerContainer).removeMessageListener(any(MessageListener.class), eq(PROFILE_TOPIC));
+        assertEquals(0, getConnections());
+    }
+
+    @Test
+    public void streamClosedAfterMaxConnectionDurationTest() {
+        TimelineUpdateService service = buildService(256, 30_000, 100);
+
+        Flux<ServerSentEvent<String>> updates = service.streamHomeTimelineUpdates("user", PROFILE_ID);
+        List<ServerSentEvent<String>> events = updates.collectList().block(Duration.ofSeconds(5));
+
+        assertNotNull(events);
+        assertTrue(events.isEmpty());
+        verify(listenerContainer).removeMessageListener(any(MessageListener.class), eq(PROFILE_TOPIC));
+        assertEquals(0, getConnections());
+    }
+
+    private TimelineUpdateService buildService(int bufferSize, long heartbeatIntervalMs, long maxConnectionMs) {
+        return new TimelineUpdateService(
+                listenerContainer, profileServiceClient, meterRegistry, bufferSize, heartbeatIntervalMs, maxConnectionMs
+        );
+    }
+
+    private MessageListener captureListener() {
+        ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(listenerContainer).addMessageListener(listener.capture(), eq(PROFILE_TOPIC));
+        return listener.getValue();
+    }
+
+    private void publish(MessageListener listener, String update) {
+        listener.onMessage(new DefaultMessage(
+                PROFILE_TOPIC.getTopic().getBytes(StandardCharsets.UTF_8),
+                update.getBytes(StandardCharsets.UTF_8)
+        ), null);
+    }
+
+    private double getConnections() {
+        return meterRegistry.get("timeline.push.connections").gauge().value();
+    }
+}
@@ -1,18 +1,24 @@
 package com.example.tweet.client;
 
 import com.example.tweet.dto.response.ProfileResponse;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
 import java.util.List;
 
+import static com.example.tweet.constant.CacheName.PROFILES_CACHE_NAME;
+import static com.example.tweet.constant.CacheName.PROFILE_IDS_CACHE_NAME;
+
 @FeignClient("${services.profile.name}")
 public interface ProfileServiceClient {
 
+    @Cacheable(cacheNames = PROFILE_IDS_CACHE_NAME, cacheManager = "profileCacheManager")
     @GetMapping("/api/v1/profiles/id/{email}")
     String getProfileIdByLoggedInUser(@PathVariable String email);
 
+    @Cacheable(cacheNames = PROFILES_CACHE_NAME, cacheManager = "profileCacheManager")
     @GetMapping("/api/v1/profiles/{id}")
     ProfileResponse getProfileById(@PathVariable String id);
 
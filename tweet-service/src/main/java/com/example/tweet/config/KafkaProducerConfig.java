@@ -0,0 +1,29 @@
+package com.example.tweet.config;
+
+import com.example.tweet.dto.message.EntityMessage;
+import com.example.tweet.dto.message.EntityMessageCodec;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+@Configuration
+public class KafkaProducerConfig {
+
+    @Bean
+    public ProducerFactory<String, EntityMessage> entityMessageProducerFactory(KafkaProperties kafkaProperties) {
+        return new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(),
+                new StringSerializer(),
+                new EntityMessageCodec()
+        );
+    }
+
+    @Bean
+    public KafkaTemplate<String, EntityMessage> entityMessageKafkaTemplate(ProducerFactory<String, EntityMessage> entityMessageProducerFactory) {
+        return new KafkaTemplate<>(entityMessageProducerFactory);
+    }
+}
@@ -18,6 +18,12 @@ public class KafkaTopicConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapAddress;
 
+    @Value("${kafka.timeline-topics.partitions:6}")
+    private int timelineTopicPartitions;
+
+    @Value("${kafka.timeline-topics.replication-factor:1}")
+    private short timelineTopicReplicationFactor;
+
     @Bean
     public KafkaAdmin kafkaAdmin() {
         Map<String, Object> configs = Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
@@ -27,8 +33,8 @@ public class KafkaTopicConfig {
     @Bean
     public KafkaAdmin.NewTopics topics() {
         return new KafkaAdmin.NewTopics(
-                new NewTopic(USER_TIMELINE_TOPIC, 1, (short) 1),
-                new NewTopic(HOME_TIMELINE_TOPIC, 1, (short) 1)
+                new NewTopic(USER_TIMELINE_TOPIC, timelineTopicPartitions, timelineTopicReplicationFactor),
+                new NewTopic(HOME_TIMELINE_TOPIC, timelineTopicPartitions, timelineTopicReplicationFactor)
         );
     }
 }
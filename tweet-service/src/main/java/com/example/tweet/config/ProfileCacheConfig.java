@@ -0,0 +1,68 @@
+package com.example.tweet.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+
+import static com.example.tweet.constant.CacheName.PROFILES_CACHE_NAME;
+import static com.example.tweet.constant.CacheName.PROFILE_IDS_CACHE_NAME;
+import static com.example.tweet.constant.ChannelName.PROFILE_UPDATES_CHANNEL;
+
+/**
+ * Local near-cache in front of profile-service lookups. Entries live for a short time and are evicted
+ * as soon as profile-service announces an update of the profile.
+ */
+@Configuration
+@Slf4j
+public class ProfileCacheConfig {
+
+    @Value("${tweet.profiles.near-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${tweet.profiles.near-cache.max-size:10000}")
+    private long maxSize;
+
+    @Bean
+    public CaffeineCacheManager profileCacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(PROFILES_CACHE_NAME, PROFILE_IDS_CACHE_NAME);
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .recordStats());
+        return cacheManager;
+    }
+
+    @Bean
+    public MessageListener profileUpdatesListener(CaffeineCacheManager profileCacheManager) {
+        Cache profiles = Objects.requireNonNull(profileCacheManager.getCache(PROFILES_CACHE_NAME));
+        return (message, pattern) -> {
+            String profileId = new String(message.getBody(), StandardCharsets.UTF_8);
+            profiles.evict(profileId);
+            log.info("profile {} has been evicted from near-cache", profileId);
+        };
+    }
+
+    @Bean
+    public RedisMessageListenerContainer profileUpdatesListenerContainer(
+            RedisConnectionFactory redisConnectionFactory,
+            MessageListener profileUpdatesListener
+    ) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(profileUpdatesListener, new ChannelTopic(PROFILE_UPDATES_CHANNEL));
+        return container;
+    }
+}
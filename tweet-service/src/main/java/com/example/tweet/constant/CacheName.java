@@ -9,4 +9,6 @@ public class CacheName {
     public static final String RETWEETS_CACHE_NAME = "retweets";
     public static final String REPLIES_CACHE_NAME = "replies";
     public static final String REPLIES_FOR_TWEET_CACHE_NAME = "repliesForTweet";
+    public static final String PROFILES_CACHE_NAME = "profiles";
+    public static final String PROFILE_IDS_CACHE_NAME = "profileIds";
 }
@@ -0,0 +1,6 @@
+package com.example.tweet.constant;
+
+public enum ViewCountingMode {
+    EXACT,
+    HYPERLOGLOG
+}
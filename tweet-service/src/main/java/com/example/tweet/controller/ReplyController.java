@@ -33,12 +33,22 @@ public class ReplyController {
     @GetMapping("/replies/user/{profileId}")
     public ResponseEntity<List<TweetResponse>> getAllRepliesForUser(
             @PathVariable String profileId,
+            @RequestParam(required = false) Long beforeTimestamp,
+            @RequestParam(required = false) Long beforeId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size
     ) {
+        if (beforeTimestamp != null && beforeId != null) {
+            return ResponseEntity.ok(replyService.getRepliesForUserBefore(profileId, beforeTimestamp, beforeId, size));
+        }
         return ResponseEntity.ok(replyService.getAllRepliesForUser(profileId, PageRequest.of(page, size)));
     }
 
+    @PostMapping("/replies/batch")
+    public ResponseEntity<List<TweetResponse>> getReplies(@RequestBody List<Long> replyIds, @RequestHeader String loggedInUser) {
+        return ResponseEntity.ok(replyService.getRepliesByIds(replyIds, loggedInUser));
+    }
+
     @GetMapping("/replies/{replyToId}")
     public ResponseEntity<List<TweetResponse>> getAllRepliesForTweet(@PathVariable Long replyToId, @RequestHeader String loggedInUser) {
         return ResponseEntity.ok(replyService.getAllRepliesForTweet(replyToId, loggedInUser));
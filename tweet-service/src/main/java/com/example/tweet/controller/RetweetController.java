@@ -31,12 +31,22 @@ public class RetweetController {
         return ResponseEntity.ok(retweetService.getRetweetById(retweetId, loggedInUser));
     }
 
+    @PostMapping("/retweets/batch")
+    public ResponseEntity<List<TweetResponse>> getRetweets(@RequestBody List<Long> retweetIds, @RequestHeader String loggedInUser) {
+        return ResponseEntity.ok(retweetService.getRetweetsByIds(retweetIds, loggedInUser));
+    }
+
     @GetMapping("/retweets/user/{profileId}")
     public ResponseEntity<List<TweetResponse>> getAllRetweetsForUser(
             @PathVariable String profileId,
+            @RequestParam(required = false) Long beforeTimestamp,
+            @RequestParam(required = false) Long beforeId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size
     ) {
+        if (beforeTimestamp != null && beforeId != null) {
+            return ResponseEntity.ok(retweetService.getRetweetsForUserBefore(profileId, beforeTimestamp, beforeId, size));
+        }
         return ResponseEntity.ok(retweetService.getAllRetweetsForUser(profileId, PageRequest.of(page, size)));
     }
 }
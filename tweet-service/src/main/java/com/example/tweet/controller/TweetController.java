@@ -44,12 +44,22 @@ public class TweetController {
         return ResponseEntity.ok(tweetService.getTweetById(tweetId, loggedInUser));
     }
 
+    @PostMapping("/tweets/batch")
+    public ResponseEntity<List<TweetResponse>> getTweets(@RequestBody List<Long> tweetIds, @RequestHeader String loggedInUser) {
+        return ResponseEntity.ok(tweetService.getTweetsByIds(tweetIds, loggedInUser));
+    }
+
     @GetMapping("/tweets/user/{profileId}")
     public ResponseEntity<List<TweetResponse>> getAllTweetsForUser(
             @PathVariable String profileId,
+            @RequestParam(required = false) Long beforeTimestamp,
+            @RequestParam(required = false) Long beforeId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size
     ) {
+        if (beforeTimestamp != null && beforeId != null) {
+            return ResponseEntity.ok(tweetService.getTweetsForUserBefore(profileId, beforeTimestamp, beforeId, size));
+        }
         return ResponseEntity.ok(tweetService.getAllTweetsForUser(profileId, PageRequest.of(page, size)));
     }
 
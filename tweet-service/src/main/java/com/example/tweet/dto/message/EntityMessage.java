@@ -4,19 +4,24 @@ import com.example.tweet.constant.EntityName;
 import com.example.tweet.constant.Operation;
 import lombok.Builder;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
 @Builder
 public record EntityMessage (
         Long entityId,
         String profileId,
         String entityName,
-        String operation
+        String operation,
+        Long timestamp
 ) {
-    public static EntityMessage valueOf(Long entityId, String profileId, EntityName entityName, Operation operation) {
+    public static EntityMessage valueOf(Long entityId, String profileId, LocalDateTime creationDate, EntityName entityName, Operation operation) {
         return EntityMessage.builder()
                 .entityId(entityId)
                 .profileId(profileId)
                 .entityName(entityName.getName())
                 .operation(operation.getOperation())
+                .timestamp(creationDate != null ? creationDate.toInstant(ZoneOffset.UTC).toEpochMilli() : null)
                 .build();
     }
 }
@@ -0,0 +1,90 @@
+package com.example.tweet.dto.message;
+
+import com.example.tweet.constant.EntityName;
+import com.example.tweet.constant.Operation;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Compact binary format of {@link EntityMessage}, the same format is decoded by fanout-service.
+ * <pre>
+ * version (1 byte) | entity name ordinal (1 byte) | operation ordinal (1 byte) |
+ * entity id (8 bytes) | timestamp (8 bytes) | profile id length (2 bytes) | profile id (UTF-8)
+ * </pre>
+ * Enum ordinals are part of the format, new constants must only be appended.
+ */
+public class EntityMessageCodec implements Serializer<EntityMessage>, Deserializer<EntityMessage> {
+
+    public static final byte VERSION = 1;
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    private static final int HEADER_SIZE = 1 + 1 + 1 + Long.BYTES + Long.BYTES + Short.BYTES;
+
+    @Override
+    public byte[] serialize(String topic, EntityMessage message) {
+        if (message == null) {
+            return null;
+        }
+
+        byte[] profileId = message.profileId().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(HEADER_SIZE + profileId.length)
+                .put(VERSION)
+                .put((byte) entityNameOf(message.entityName()).ordinal())
+                .put((byte) Operation.valueOf(message.operation()).ordinal())
+                .putLong(message.entityId())
+                .putLong(message.timestamp() != null ? message.timestamp() : NO_TIMESTAMP)
+                .putShort((short) profileId.length)
+                .put(profileId)
+                .array();
+    }
+
+    @Override
+    public EntityMessage deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new SerializationException("Unsupported entity message version " + version);
+        }
+
+        EntityName entityName = EntityName.values()[buffer.get()];
+        Operation operation = Operation.values()[buffer.get()];
+        long entityId = buffer.getLong();
+        long timestamp = buffer.getLong();
+        byte[] profileId = new byte[buffer.getShort()];
+        buffer.get(profileId);
+
+        return EntityMessage.builder()
+                .entityId(entityId)
+                .profileId(new String(profileId, StandardCharsets.UTF_8))
+                .entityName(entityName.getName())
+                .operation(operation.getOperation())
+                .timestamp(timestamp != NO_TIMESTAMP ? timestamp : null)
+                .build();
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static EntityName entityNameOf(String name) {
+        for (EntityName entityName : EntityName.values()) {
+            if (entityName.getName().equals(name)) {
+                return entityName;
+            }
+        }
+        throw new SerializationException("Unknown entity name " + name);
+    }
+}
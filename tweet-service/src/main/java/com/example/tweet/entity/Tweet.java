@@ -3,6 +3,7 @@ package com.example.tweet.entity;
 import jakarta.annotation.Nullable;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -20,7 +21,8 @@ import java.util.Set;
         indexes = {
                 @Index(columnList = "reply_to_id", name = "reply_to_id"),
                 @Index(columnList = "quote_to_id", name = "quote_to_id"),
-                @Index(columnList = "retweet_to_id", name = "retweet_to_id")
+                @Index(columnList = "retweet_to_id", name = "retweet_to_id"),
+                @Index(columnList = "profileId, creationDate DESC, id DESC", name = "profile_id_creation_date")
         }
 )
 public class Tweet implements BaseEntity<Long> {
@@ -35,6 +37,26 @@ public class Tweet implements BaseEntity<Long> {
     @ElementCollection
     private Set<String> mediaUrls = new HashSet<>();
 
+    /**
+     * Counters are changed only by atomic increments in the repository, never by entity updates,
+     * so that saving a tweet doesn't overwrite concurrent increments with stale values.
+     */
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private int likeCount;
+
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private int replyCount;
+
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private int retweetCount;
+
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private int viewCount;
+
     @OneToMany(
             targetEntity = Like.class,
             mappedBy = "parentTweet",
@@ -0,0 +1,47 @@
+package com.example.tweet.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import static com.example.tweet.constant.CacheName.PROFILE_IDS_CACHE_NAME;
+
+/**
+ * The gateway resolves the profile id of the logged-in user and passes it in a header. It is put into
+ * the near-cache of profile ids, so {@code getProfileIdByLoggedInUser} doesn't call profile-service.
+ */
+@Component
+public class ProfileIdHeaderFilter extends OncePerRequestFilter {
+    private static final String LOGGED_IN_USER_HEADER = "loggedInUser";
+    private static final String PROFILE_ID_HEADER = "profileId";
+
+    private final Cache profileIds;
+
+    public ProfileIdHeaderFilter(@Qualifier("profileCacheManager") CacheManager profileCacheManager) {
+        this.profileIds = Objects.requireNonNull(profileCacheManager.getCache(PROFILE_IDS_CACHE_NAME));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        String loggedInUser = request.getHeader(LOGGED_IN_USER_HEADER);
+        String profileId = request.getHeader(PROFILE_ID_HEADER);
+        if (loggedInUser != null && profileId != null) {
+            profileIds.put(loggedInUser, profileId);
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
@@ -5,12 +5,15 @@ import com.example.tweet.dto.request.TweetCreateRequest;
 import com.example.tweet.dto.request.TweetUpdateRequest;
 import com.example.tweet.dto.response.TweetResponse;
 import com.example.tweet.entity.Tweet;
+import com.example.tweet.repository.projection.TweetStatistics;
 import com.example.tweet.util.TweetUtil;
 import org.mapstruct.Context;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 
+import java.util.Map;
+
 @Mapper(componentModel = "spring")
 public interface TweetMapper {
 
@@ -23,6 +26,10 @@ public interface TweetMapper {
     @Mapping(target = "retweets", expression = "java(new java.util.HashSet<>())")
     @Mapping(target = "replies", expression = "java(new java.util.HashSet<>())")
     @Mapping(target = "views", expression = "java(new java.util.HashSet<>())")
+    @Mapping(target = "likeCount", ignore = true)
+    @Mapping(target = "replyCount", ignore = true)
+    @Mapping(target = "retweetCount", ignore = true)
+    @Mapping(target = "viewCount", ignore = true)
     @Mapping(target = "retweetTo", ignore = true)
     @Mapping(target = "quoteTo", expression = "java(quoteTo)")
     @Mapping(target = "replyTo", expression = "java(replyTo)")
@@ -43,6 +50,10 @@ public interface TweetMapper {
     @Mapping(target = "retweets", expression = "java(new java.util.HashSet<>())")
     @Mapping(target = "replies", expression = "java(new java.util.HashSet<>())")
     @Mapping(target = "views", expression = "java(new java.util.HashSet<>())")
+    @Mapping(target = "likeCount", ignore = true)
+    @Mapping(target = "replyCount", ignore = true)
+    @Mapping(target = "retweetCount", ignore = true)
+    @Mapping(target = "viewCount", ignore = true)
     @Mapping(target = "retweetTo", expression = "java(retweetTo)")
     @Mapping(target = "quoteTo", ignore = true)
     @Mapping(target = "replyTo", ignore = true)
@@ -52,24 +63,40 @@ public interface TweetMapper {
             @Context String loggedInUser
     );
 
+    default TweetResponse toResponse(
+            Tweet tweet,
+            String loggedInUser,
+            TweetUtil tweetUtil,
+            ProfileServiceClient profileServiceClient
+    ) {
+        if (tweet == null) {
+            return null;
+        }
+        return toResponse(tweet, loggedInUser, tweetUtil.getStatisticsForTweet(tweet, loggedInUser), profileServiceClient);
+    }
+
     @Mapping(target = "profile", expression = "java(profileServiceClient.getProfileById(tweet.getProfileId()))")
-    @Mapping(target = "quoteTo", expression = "java(this.toResponse(tweet.getQuoteTo(), loggedInUser, tweetUtil, profileServiceClient))")
-    @Mapping(target = "replyTo", expression = "java(this.toResponse(tweet.getReplyTo(), loggedInUser, tweetUtil, profileServiceClient))")
-    @Mapping(target = "retweetTo", expression = "java(this.toResponse(tweet.getRetweetTo(), loggedInUser, tweetUtil, profileServiceClient))")
-    @Mapping(target = "likes", expression = "java(tweetUtil.countLikesForTweet(tweet.getId()))")
-    @Mapping(target = "replies", expression = "java(tweetUtil.countRepliesForTweet(tweet.getId()))")
-    @Mapping(target = "views", expression = "java(tweetUtil.countViewsForTweet(tweet.getId()))")
-    @Mapping(target = "retweets", expression = "java(tweetUtil.countRetweetsForTweet(tweet.getId()))")
-    @Mapping(target = "isRetweeted", expression = "java(tweetUtil.isTweetRetweetedByLoggedInUser(tweet.getId(), loggedInUser, profileServiceClient))")
-    @Mapping(target = "isLiked", expression = "java(tweetUtil.isTweetLikedByLoggedInUser(tweet.getId(), loggedInUser, profileServiceClient))")
+    @Mapping(target = "quoteTo", expression = "java(this.toResponse(tweet.getQuoteTo(), loggedInUser, statistics, profileServiceClient))")
+    @Mapping(target = "replyTo", expression = "java(this.toResponse(tweet.getReplyTo(), loggedInUser, statistics, profileServiceClient))")
+    @Mapping(target = "retweetTo", expression = "java(this.toResponse(tweet.getRetweetTo(), loggedInUser, statistics, profileServiceClient))")
+    @Mapping(target = "likes", expression = "java(getStatistics(tweet, statistics).likes().intValue())")
+    @Mapping(target = "replies", expression = "java(getStatistics(tweet, statistics).replies().intValue())")
+    @Mapping(target = "views", expression = "java(getStatistics(tweet, statistics).views().intValue())")
+    @Mapping(target = "retweets", expression = "java(getStatistics(tweet, statistics).retweets().intValue())")
+    @Mapping(target = "isRetweeted", expression = "java(getStatistics(tweet, statistics).isRetweeted())")
+    @Mapping(target = "isLiked", expression = "java(getStatistics(tweet, statistics).isLiked())")
     @Mapping(target = "isBelongs", expression = "java(profileServiceClient.getProfileById(tweet.getProfileId()).getEmail().equals(loggedInUser))")
     TweetResponse toResponse(
             Tweet tweet,
             @Context String loggedInUser,
-            @Context TweetUtil tweetUtil,
+            @Context Map<Long, TweetStatistics> statistics,
             @Context ProfileServiceClient profileServiceClient
     );
 
+    default TweetStatistics getStatistics(Tweet tweet, @Context Map<Long, TweetStatistics> statistics) {
+        return statistics.getOrDefault(tweet.getId(), TweetStatistics.empty(tweet.getId()));
+    }
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "profileId", ignore = true)
     @Mapping(target = "creationDate", ignore = true)
@@ -78,6 +105,10 @@ public interface TweetMapper {
     @Mapping(target = "replies", ignore = true)
     @Mapping(target = "retweets", ignore = true)
     @Mapping(target = "views", ignore = true)
+    @Mapping(target = "likeCount", ignore = true)
+    @Mapping(target = "replyCount", ignore = true)
+    @Mapping(target = "retweetCount", ignore = true)
+    @Mapping(target = "viewCount", ignore = true)
     @Mapping(target = "replyTo", ignore = true)
     @Mapping(target = "retweetTo", ignore = true)
     @Mapping(target = "quoteTo", ignore = true)
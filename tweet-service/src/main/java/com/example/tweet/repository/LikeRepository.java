@@ -10,6 +10,4 @@ import java.util.Optional;
 public interface LikeRepository extends JpaRepository<Like, Long> {
 
     Optional<Like> findByParentTweetIdAndProfileId(Long parentTweetId, String profileId);
-
-    Integer countAllByParentTweetId(Long parentTweetId);
 }
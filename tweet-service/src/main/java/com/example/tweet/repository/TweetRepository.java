@@ -1,10 +1,18 @@
 package com.example.tweet.repository;
 
 import com.example.tweet.entity.Tweet;
+import com.example.tweet.repository.projection.TweetStatistics;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +25,53 @@ public interface TweetRepository extends JpaRepository<Tweet, Long> {
 
     List<Tweet> findAllByProfileIdAndRetweetToIsNotNullOrderByCreationDateDesc(String profileId, Pageable page);
 
+    /**
+     * Returns the tweets of the user older than the position of the given creation time in epoch millis
+     * and id, which needn't exist anymore. Positions order tweets created in the same millisecond by id,
+     * so the stored creation date is compared with the bounds of that millisecond.
+     */
+    default List<Tweet> findTweetsByProfileIdBefore(String profileId, long beforeTimestamp, Long beforeId, Pageable page) {
+        LocalDateTime beforeDate = toCreationDate(beforeTimestamp);
+        return findTweetsByProfileIdBefore(profileId, beforeDate, beforeDate.plus(1, ChronoUnit.MILLIS), beforeId, page);
+    }
+
+    default List<Tweet> findRepliesByProfileIdBefore(String profileId, long beforeTimestamp, Long beforeId, Pageable page) {
+        LocalDateTime beforeDate = toCreationDate(beforeTimestamp);
+        return findRepliesByProfileIdBefore(profileId, beforeDate, beforeDate.plus(1, ChronoUnit.MILLIS), beforeId, page);
+    }
+
+    default List<Tweet> findRetweetsByProfileIdBefore(String profileId, long beforeTimestamp, Long beforeId, Pageable page) {
+        LocalDateTime beforeDate = toCreationDate(beforeTimestamp);
+        return findRetweetsByProfileIdBefore(profileId, beforeDate, beforeDate.plus(1, ChronoUnit.MILLIS), beforeId, page);
+    }
+
+    @Query("""
+            SELECT t FROM Tweet t
+            WHERE t.profileId = :profileId AND t.replyTo IS NULL AND t.retweetTo IS NULL
+                AND t.creationDate < :beforeDateEnd
+                AND (t.creationDate < :beforeDate OR t.id < :beforeId)
+            ORDER BY t.creationDate DESC, t.id DESC
+            """)
+    List<Tweet> findTweetsByProfileIdBefore(String profileId, LocalDateTime beforeDate, LocalDateTime beforeDateEnd, Long beforeId, Pageable page);
+
+    @Query("""
+            SELECT t FROM Tweet t
+            WHERE t.profileId = :profileId AND t.replyTo IS NOT NULL
+                AND t.creationDate < :beforeDateEnd
+                AND (t.creationDate < :beforeDate OR t.id < :beforeId)
+            ORDER BY t.creationDate DESC, t.id DESC
+            """)
+    List<Tweet> findRepliesByProfileIdBefore(String profileId, LocalDateTime beforeDate, LocalDateTime beforeDateEnd, Long beforeId, Pageable page);
+
+    @Query("""
+            SELECT t FROM Tweet t
+            WHERE t.profileId = :profileId AND t.retweetTo IS NOT NULL
+                AND t.creationDate < :beforeDateEnd
+                AND (t.creationDate < :beforeDate OR t.id < :beforeId)
+            ORDER BY t.creationDate DESC, t.id DESC
+            """)
+    List<Tweet> findRetweetsByProfileIdBefore(String profileId, LocalDateTime beforeDate, LocalDateTime beforeDateEnd, Long beforeId, Pageable page);
+
     List<Tweet> findAllByReplyToIdOrderByCreationDateDesc(Long replyToId);
 
     List<Tweet> findAllByQuoteToId(Long quoteToId);
@@ -25,9 +80,58 @@ public interface TweetRepository extends JpaRepository<Tweet, Long> {
 
     Optional<Tweet> findByIdAndReplyToIsNotNull(Long replyId);
 
+    List<Tweet> findAllByIdInAndRetweetToIsNotNull(Collection<Long> retweetIds);
+
+    List<Tweet> findAllByIdInAndReplyToIsNotNull(Collection<Long> replyIds);
+
     Optional<Tweet> findByRetweetToIdAndProfileId(Long retweetToId, String profileId);
 
-    Integer countAllByReplyToId(Long replyToId);
+    @Query("""
+            SELECT new com.example.tweet.repository.projection.TweetStatistics(
+                t.id,
+                CAST(t.likeCount AS Long),
+                CAST(t.replyCount AS Long),
+                CAST(t.retweetCount AS Long),
+                CAST(t.viewCount AS Long),
+                EXISTS (SELECT l.id FROM Like l WHERE l.parentTweet.id = t.id AND l.profileId = :profileId),
+                EXISTS (SELECT rt.id FROM Tweet rt WHERE rt.retweetTo.id = t.id AND rt.profileId = :profileId)
+            )
+            FROM Tweet t
+            WHERE t.id IN :tweetIds
+            """)
+    List<TweetStatistics> findStatisticsByIdIn(Collection<Long> tweetIds, String profileId);
+
+    @Modifying
+    @Query("UPDATE Tweet t SET t.likeCount = t.likeCount + :delta WHERE t.id = :tweetId")
+    void updateLikeCount(Long tweetId, int delta);
+
+    @Modifying
+    @Query("UPDATE Tweet t SET t.replyCount = t.replyCount + :delta WHERE t.id = :tweetId")
+    void updateReplyCount(Long tweetId, int delta);
+
+    @Modifying
+    @Query("UPDATE Tweet t SET t.retweetCount = t.retweetCount + :delta WHERE t.id = :tweetId")
+    void updateRetweetCount(Long tweetId, int delta);
+
+    @Modifying
+    @Query("UPDATE Tweet t SET t.viewCount = t.viewCount + :delta WHERE t.id = :tweetId")
+    void updateViewCount(Long tweetId, int delta);
+
+    @Query("SELECT COALESCE(MAX(t.id), 0) FROM Tweet t")
+    Long findMaxId();
+
+    @Modifying
+    @Query("""
+            UPDATE Tweet t SET
+                t.likeCount = (SELECT COUNT(l) FROM Like l WHERE l.parentTweet.id = t.id),
+                t.replyCount = (SELECT COUNT(r) FROM Tweet r WHERE r.replyTo.id = t.id),
+                t.retweetCount = (SELECT COUNT(rt) FROM Tweet rt WHERE rt.retweetTo.id = t.id),
+                t.viewCount = (SELECT COUNT(v) FROM View v WHERE v.parentTweet.id = t.id)
+            WHERE t.id > :fromId AND t.id <= :toId
+            """)
+    int reconcileCounters(Long fromId, Long toId);
 
-    Integer countAllByRetweetToId(Long retweetToId);
+    private static LocalDateTime toCreationDate(long timestamp) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC);
+    }
 }
@@ -0,0 +1,22 @@
+package com.example.tweet.repository.projection;
+
+/**
+ * Counters of a tweet together with the logged-in user's like and retweet flags.
+ */
+public record TweetStatistics(
+        Long tweetId,
+        Long likes,
+        Long replies,
+        Long retweets,
+        Long views,
+        Boolean isLiked,
+        Boolean isRetweeted
+) {
+    public TweetStatistics withViews(Long views) {
+        return new TweetStatistics(tweetId, likes, replies, retweets, views, isLiked, isRetweeted);
+    }
+
+    public static TweetStatistics empty(Long tweetId) {
+        return new TweetStatistics(tweetId, 0L, 0L, 0L, 0L, false, false);
+    }
+}
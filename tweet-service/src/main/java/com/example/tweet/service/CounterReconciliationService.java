@@ -0,0 +1,52 @@
+package com.example.tweet.service;
+
+import com.example.tweet.repository.TweetRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Recomputes the denormalised like, reply, retweet and view counters of tweets from the source tables,
+ * repairing any drift of the counters maintained incrementally on writes. Tweets are reconciled in id
+ * ranges, each range in its own transaction, so that rows are not locked for the whole run.
+ * The counters are also reconciled once on startup, which backfills the counters of tweets
+ * created before the columns existed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CounterReconciliationService {
+
+    private final TweetRepository tweetRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${tweet.counters.reconciliation.batch-size:1000}")
+    private long batchSize;
+
+    @Value("${tweet.counters.reconciliation.on-startup:true}")
+    private boolean reconcileOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileCountersOnStartup() {
+        if (reconcileOnStartup) {
+            reconcileCounters();
+        }
+    }
+
+    @Scheduled(cron = "${tweet.counters.reconciliation.cron:0 0 4 * * *}")
+    public void reconcileCounters() {
+        long maxId = tweetRepository.findMaxId();
+        int reconciled = 0;
+        for (long fromId = 0; fromId < maxId; fromId += batchSize) {
+            final long from = fromId;
+            Integer updated = transactionTemplate.execute(status -> tweetRepository.reconcileCounters(from, from + batchSize));
+            reconciled += updated != null ? updated : 0;
+        }
+        log.info("counters of {} tweets have been reconciled", reconciled);
+    }
+}
@@ -1,7 +1,6 @@
 package com.example.tweet.service;
 
 import com.example.tweet.dto.message.EntityMessage;
-import com.google.gson.Gson;
 import lombok.RequiredArgsConstructor;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
@@ -10,11 +9,13 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class KafkaProducerService {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final Gson gson;
+    private final KafkaTemplate<String, EntityMessage> kafkaTemplate;
 
+    /**
+     * Messages are keyed by the author's profile id, so all messages of one author
+     * go to the same partition and are consumed in the order they were sent.
+     */
     public void send(EntityMessage entityMessage, String topic) {
-        String msg = gson.toJson(entityMessage);
-        kafkaTemplate.send(topic, msg);
+        kafkaTemplate.send(topic, entityMessage.profileId(), entityMessage);
     }
 }
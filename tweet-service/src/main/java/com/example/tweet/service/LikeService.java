@@ -7,6 +7,7 @@ import com.example.tweet.repository.TweetRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -18,19 +19,28 @@ public class LikeService {
     private final LikeMapper likeMapper;
     private final MessageSourceService messageSourceService;
 
+    @Transactional
     public void likeTweet(Long tweetId, String loggedInUser) {
         tweetRepository.findById(tweetId)
                 .map(tweet -> likeMapper.toEntity(tweet, profileServiceClient, loggedInUser))
                 .map(likeRepository::saveAndFlush)
+                .map(like -> {
+                    tweetRepository.updateLikeCount(tweetId, 1);
+                    return like;
+                })
                 .orElseThrow(() -> new EntityNotFoundException(
                         messageSourceService.generateMessage("error.entity.not_found", tweetId)
                 ));
     }
 
+    @Transactional
     public void unlikeTweet(Long tweetId, String loggedInUser) {
         String profileId = profileServiceClient.getProfileIdByLoggedInUser(loggedInUser);
         likeRepository.findByParentTweetIdAndProfileId(tweetId, profileId)
-                .ifPresentOrElse(likeRepository::delete, () -> {
+                .ifPresentOrElse(like -> {
+                    likeRepository.delete(like);
+                    tweetRepository.updateLikeCount(tweetId, -1);
+                }, () -> {
                     throw new EntityNotFoundException(
                             messageSourceService.generateMessage("error.entity.not_found", tweetId)
                     );
@@ -17,6 +17,7 @@ import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -44,12 +45,14 @@ public class ReplyService {
     private final TweetService tweetService;
     private final CacheManager cacheManager;
 
+    @Transactional
     public TweetResponse reply(TweetCreateRequest request, Long replyToId, String loggedInUser, MultipartFile[] files) {
         return tweetRepository.findById(replyToId)
                 .map(replyTo -> tweetMapper.toEntity(request, null, replyTo, profileServiceClient, loggedInUser))
                 .map(reply -> mediaUtil.addMedia(reply, files))
                 .map(tweetRepository::saveAndFlush)
                 .map(reply -> {
+                    tweetRepository.updateReplyCount(replyToId, 1);
                     tweetUtil.evictEntityFromCache(reply.getReplyTo().getId(), REPLIES_FOR_TWEET_CACHE_NAME);
                     tweetUtil.sendMessageWithReply(reply, ADD);
                     return tweetMapper.toResponse(reply, loggedInUser, tweetUtil, profileServiceClient);
@@ -59,6 +62,7 @@ public class ReplyService {
                 ));
     }
 
+    @Transactional
     @CacheEvict(cacheNames = REPLIES_CACHE_NAME, key = "#p0")
     public boolean deleteReply(Long replyId, String loggedInUser) {
         tweetRepository.findById(replyId)
@@ -68,6 +72,7 @@ public class ReplyService {
                     tweetUtil.evictAllEntityRelationsFromCache(reply, WITH_TIMELINE);
                     tweetUtil.sendMessageWithReply(reply, DELETE);
                     tweetRepository.delete(reply);
+                    tweetRepository.updateReplyCount(reply.getReplyTo().getId(), -1);
                 }, () -> {
                     throw new EntityNotFoundException(
                             messageSourceService.generateMessage("error.entity.not_found", replyId)
@@ -112,6 +117,21 @@ public class ReplyService {
                 ));
     }
 
+    public List<TweetResponse> getRepliesByIds(List<Long> replyIds, String loggedInUser) {
+        return tweetUtil.getEntitiesByIds(
+                replyIds,
+                REPLIES_CACHE_NAME,
+                tweetRepository::findAllByIdInAndReplyToIsNotNull,
+                reply -> tweetMapper.toResponse(
+                        viewService.createViewEntity(reply, loggedInUser, profileServiceClient),
+                        loggedInUser,
+                        tweetUtil,
+                        profileServiceClient
+                ),
+                this::updateReplyResponse
+        );
+    }
+
     public List<TweetResponse> getAllRepliesForUser(String profileId, PageRequest page) {
         ProfileResponse profile = profileServiceClient.getProfileById(profileId);
         return tweetRepository.findAllByProfileIdAndReplyToIsNotNullOrderByCreationDateDesc(profileId, page)
@@ -120,6 +140,14 @@ public class ReplyService {
                 .collect(Collectors.toList());
     }
 
+    public List<TweetResponse> getRepliesForUserBefore(String profileId, long beforeTimestamp, Long beforeId, int size) {
+        ProfileResponse profile = profileServiceClient.getProfileById(profileId);
+        return tweetRepository.findRepliesByProfileIdBefore(profileId, beforeTimestamp, beforeId, PageRequest.of(0, size))
+                .stream()
+                .map(reply -> tweetMapper.toResponse(reply, profile.getEmail(), tweetUtil, profileServiceClient))
+                .collect(Collectors.toList());
+    }
+
     @SuppressWarnings("unchecked")
     public List<TweetResponse> getAllRepliesForTweet(Long replyToId, String loggedInUser) {
         Cache cache = Objects.requireNonNull(cacheManager.getCache(REPLIES_FOR_TWEET_CACHE_NAME));
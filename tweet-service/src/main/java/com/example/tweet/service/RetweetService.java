@@ -12,6 +12,7 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Objects;
@@ -34,11 +35,13 @@ public class RetweetService {
     private final CacheManager cacheManager;
     private final TweetService tweetService;
 
+    @Transactional
     public boolean retweet(Long retweetToId, String loggedInUser) {
         tweetRepository.findById(retweetToId)
                 .map(tweet -> tweetMapper.toEntity(tweet, profileServiceClient, loggedInUser))
                 .map(tweetRepository::saveAndFlush)
                 .map(retweet -> {
+                    tweetRepository.updateRetweetCount(retweetToId, 1);
                     tweetUtil.sendMessageWithRetweet(retweet, ADD);
                     tweetUtil.evictEntityFromCache(retweetToId, TWEETS_CACHE_NAME);
                     return tweetMapper.toResponse(retweet, loggedInUser, tweetUtil, profileServiceClient);
@@ -49,6 +52,7 @@ public class RetweetService {
         return true;
     }
 
+    @Transactional
     public boolean undoRetweet(Long retweetToId, String loggedInUser) {
         String profileId = profileServiceClient.getProfileIdByLoggedInUser(loggedInUser);
         tweetRepository.findByRetweetToIdAndProfileId(retweetToId, profileId)
@@ -58,6 +62,7 @@ public class RetweetService {
                     tweetUtil.evictEntityFromCache(retweetToId, TWEETS_CACHE_NAME);
                     tweetUtil.sendMessageWithRetweet(retweet, DELETE);
                     tweetRepository.delete(retweet);
+                    tweetRepository.updateRetweetCount(retweetToId, -1);
                 }, () -> {
                     throw new EntityNotFoundException(
                             messageSourceService.generateMessage("error.entity.not_found", retweetToId)
@@ -83,6 +88,16 @@ public class RetweetService {
                 ));
     }
 
+    public List<TweetResponse> getRetweetsByIds(List<Long> retweetIds, String loggedInUser) {
+        return tweetUtil.getEntitiesByIds(
+                retweetIds,
+                RETWEETS_CACHE_NAME,
+                tweetRepository::findAllByIdInAndRetweetToIsNotNull,
+                retweet -> tweetMapper.toResponse(retweet, loggedInUser, tweetUtil, profileServiceClient),
+                this::updateRetweetResponse
+        );
+    }
+
     public List<TweetResponse> getAllRetweetsForUser(String profileId, PageRequest page) {
         ProfileResponse profile = profileServiceClient.getProfileById(profileId);
         return tweetRepository.findAllByProfileIdAndRetweetToIsNotNullOrderByCreationDateDesc(profileId, page)
@@ -91,6 +106,14 @@ public class RetweetService {
                 .collect(Collectors.toList());
     }
 
+    public List<TweetResponse> getRetweetsForUserBefore(String profileId, long beforeTimestamp, Long beforeId, int size) {
+        ProfileResponse profile = profileServiceClient.getProfileById(profileId);
+        return tweetRepository.findRetweetsByProfileIdBefore(profileId, beforeTimestamp, beforeId, PageRequest.of(0, size))
+                .stream()
+                .map(retweet -> tweetMapper.toResponse(retweet, profile.getEmail(), tweetUtil, profileServiceClient))
+                .collect(Collectors.toList());
+    }
+
     private TweetResponse updateRetweetResponse(TweetResponse retweetResponse) {
         retweetResponse.setRetweetTo(tweetService.getTweetById(
                 retweetResponse.getRetweetTo().getId(),
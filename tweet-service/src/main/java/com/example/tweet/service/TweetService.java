@@ -89,6 +89,21 @@ public class TweetService {
                 ));
     }
 
+    public List<TweetResponse> getTweetsByIds(List<Long> tweetIds, String loggedInUser) {
+        return tweetUtil.getEntitiesByIds(
+                tweetIds,
+                TWEETS_CACHE_NAME,
+                tweetRepository::findAllById,
+                tweet -> tweetMapper.toResponse(
+                        viewService.createViewEntity(tweet, loggedInUser, profileServiceClient),
+                        loggedInUser,
+                        tweetUtil,
+                        profileServiceClient
+                ),
+                this::updateTweetResponse
+        );
+    }
+
     public List<TweetResponse> getAllTweetsForUser(String profileId, PageRequest page) {
         ProfileResponse profile = profileServiceClient.getProfileById(profileId);
         return tweetRepository.findAllByProfileIdAndReplyToIsNullAndRetweetToIsNullOrderByCreationDateDesc(profileId, page)
@@ -97,6 +112,19 @@ public class TweetService {
                 .toList();
     }
 
+    /**
+     * Returns the tweets of the user older than the given position, reading a bounded range of the
+     * (profile_id, creation_date) index instead of skipping the newer rows with an offset. The position
+     * is passed by value, so the tweet at it may have been deleted in the meantime.
+     */
+    public List<TweetResponse> getTweetsForUserBefore(String profileId, long beforeTimestamp, Long beforeId, int size) {
+        ProfileResponse profile = profileServiceClient.getProfileById(profileId);
+        return tweetRepository.findTweetsByProfileIdBefore(profileId, beforeTimestamp, beforeId, PageRequest.of(0, size))
+                .stream()
+                .map(tweet -> tweetMapper.toResponse(tweet, profile.getEmail(), tweetUtil, profileServiceClient))
+                .toList();
+    }
+
     @CachePut(cacheNames = TWEETS_CACHE_NAME, key = "#p0")
     public TweetResponse updateTweet(Long tweetId, TweetUpdateRequest request, String loggedInUser, MultipartFile[] files) {
         return tweetRepository.findById(tweetId)
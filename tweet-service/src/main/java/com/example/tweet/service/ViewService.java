@@ -1,34 +1,239 @@
 package com.example.tweet.service;
 
 import com.example.tweet.client.ProfileServiceClient;
+import com.example.tweet.constant.ViewCountingMode;
 import com.example.tweet.entity.Tweet;
-import com.example.tweet.exception.CreateEntityException;
-import com.example.tweet.mapper.ViewMapper;
-import com.example.tweet.repository.ViewRepository;
+import com.example.tweet.util.ViewBuffer;
+import com.example.tweet.util.ViewBuffer.BufferedView;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Optional;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Views are recorded write-behind: a read only adds the view to an in-memory buffer, which is flushed
+ * to the database in JDBC batches by a background thread on a timer, when it reaches the flush size,
+ * and on shutdown. Reads never wait for a flush: once the buffer reaches its max size, new views are
+ * dropped and counted, so memory stays bounded. Views that couldn't be flushed are put back into
+ * the buffer and retried with the next flush.
+ * <p>
+ * In {@link ViewCountingMode#HYPERLOGLOG} mode unique views are counted approximately with a Redis
+ * HyperLogLog per tweet, and view rows are written to the database only if the audit table is enabled.
+ */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ViewService {
 
-    private final ViewRepository viewRepository;
-    private final ViewMapper viewMapper;
-    private final MessageSourceService messageSourceService;
+    // views of tweets deleted since they were buffered are skipped
+    private static final String INSERT_VIEW_SQL = """
+            INSERT INTO views (profile_id, parent_tweet_id)
+            SELECT ?, ? WHERE EXISTS (SELECT 1 FROM tweets WHERE id = ?)
+            ON CONFLICT DO NOTHING""";
+    private static final String UPDATE_VIEW_COUNT_SQL = "UPDATE tweets SET view_count = view_count + ? WHERE id = ?";
+    private static final String VIEWS_HYPERLOGLOG_PREFIX = "tweet_views:";
 
+    private final ViewBuffer viewBuffer;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "view-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${tweet.views.buffer.flush-size:5000}")
+    private int flushSize;
+
+    @Value("${tweet.views.buffer.max-size:50000}")
+    private int maxSize;
+
+    @Value("${tweet.views.batch-size:500}")
+    private int batchSize;
+
+    @Value("${tweet.views.counting-mode:EXACT}")
+    private ViewCountingMode countingMode;
+
+    @Value("${tweet.views.audit-table:true}")
+    private boolean auditTable;
 
     public Tweet createViewEntity(Tweet parentTweet, String loggedInUser, ProfileServiceClient profileServiceClient) {
+        if (viewBuffer.size() >= maxSize) {
+            meterRegistry.counter("tweet.views.dropped").increment();
+            return parentTweet;
+        }
+
         String profileId = profileServiceClient.getProfileIdByLoggedInUser(loggedInUser);
-        if (viewRepository.findByProfileIdAndParentTweetId(profileId, parentTweet.getId()).isEmpty()) {
-            Optional.of(parentTweet)
-                    .map(tweet -> viewMapper.toEntity(tweet, loggedInUser, profileServiceClient))
-                    .map(viewRepository::saveAndFlush)
-                    .orElseThrow(() -> new CreateEntityException(
-                            messageSourceService.generateMessage("error.entity.unsuccessful_creation")
-                    ));
+        int bufferedViews = viewBuffer.add(profileId, parentTweet.getId());
+        if (bufferedViews >= flushSize) {
+            requestFlush();
         }
         return parentTweet;
     }
+
+    /**
+     * Hands a flush to the background thread, unless one has already been requested.
+     */
+    private void requestFlush() {
+        if (!flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            flushExecutor.execute(() -> {
+                flushRequested.set(false);
+                flushViews();
+            });
+        } catch (RejectedExecutionException e) {
+            flushRequested.set(false);
+        }
+    }
+
+    public boolean isApproximateCounting() {
+        return countingMode == ViewCountingMode.HYPERLOGLOG;
+    }
+
+    /**
+     * Counts unique views of the tweets with their HyperLogLogs, in one pipeline.
+     */
+    public Map<Long, Long> countApproximateViews(Collection<Long> tweetIds) {
+        List<Long> ids = List.copyOf(tweetIds);
+        List<Object> counts = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long tweetId : ids) {
+                connection.hyperLogLogCommands().pfCount(toBytes(VIEWS_HYPERLOGLOG_PREFIX + tweetId));
+            }
+            return null;
+        });
+
+        Map<Long, Long> viewsByTweet = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            viewsByTweet.put(ids.get(i), (Long) counts.get(i));
+        }
+        return viewsByTweet;
+    }
+
+    @Scheduled(fixedDelayString = "${tweet.views.flush-interval-ms:1000}")
+    public void flushViews() {
+        flushLock.lock();
+        try {
+            writeViews(viewBuffer.drain());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        flushViews();
+    }
+
+    private void writeViews(List<BufferedView> views) {
+        if (views.isEmpty()) {
+            return;
+        }
+
+        if (isApproximateCounting()) {
+            if (!addViewsToHyperLogLogs(views)) {
+                rebufferViews(views);
+                return;
+            }
+            if (!auditTable) {
+                return;
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int[][] insertedRows = jdbcTemplate.batchUpdate(INSERT_VIEW_SQL, views, batchSize, (ps, view) -> {
+                    ps.setString(1, view.profileId());
+                    ps.setLong(2, view.tweetId());
+                    ps.setLong(3, view.tweetId());
+                });
+                if (isApproximateCounting()) {
+                    return;
+                }
+
+                Map<Long, Integer> newViewsByTweet = new HashMap<>();
+                int i = 0;
+                for (int[] batch : insertedRows) {
+                    for (int rows : batch) {
+                        if (rows > 0) {
+                            newViewsByTweet.merge(views.get(i).tweetId(), 1, Integer::sum);
+                        }
+                        i++;
+                    }
+                }
+
+                jdbcTemplate.batchUpdate(UPDATE_VIEW_COUNT_SQL, newViewsByTweet.entrySet(), batchSize, (ps, entry) -> {
+                    ps.setInt(1, entry.getValue());
+                    ps.setLong(2, entry.getKey());
+                });
+            });
+            log.info("{} views have been flushed", views.size());
+        } catch (RuntimeException e) {
+            log.error("{} views couldn't be flushed", views.size(), e);
+            rebufferViews(views);
+        }
+    }
+
+    /**
+     * Adding a profile to a HyperLogLog and inserting a view row are both idempotent,
+     * so views put back into the buffer may be written again as a whole.
+     */
+    private void rebufferViews(List<BufferedView> views) {
+        views.forEach(view -> viewBuffer.add(view.profileId(), view.tweetId()));
+        log.info("{} views have been put back into the buffer", views.size());
+    }
+
+    /**
+     * @return false if the views couldn't be added
+     */
+    private boolean addViewsToHyperLogLogs(List<BufferedView> views) {
+        Map<Long, List<byte[]>> profileIdsByTweet = new HashMap<>();
+        for (BufferedView view : views) {
+            profileIdsByTweet.computeIfAbsent(view.tweetId(), tweetId -> new ArrayList<>()).add(toBytes(view.profileId()));
+        }
+
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                profileIdsByTweet.forEach((tweetId, profileIds) -> connection.hyperLogLogCommands().pfAdd(
+                        toBytes(VIEWS_HYPERLOGLOG_PREFIX + tweetId),
+                        profileIds.toArray(byte[][]::new)
+                ));
+                return null;
+            });
+            return true;
+        } catch (RuntimeException e) {
+            log.error("{} views couldn't be added to HyperLogLogs", views.size(), e);
+            return false;
+        }
+    }
+
+    private static byte[] toBytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
 }
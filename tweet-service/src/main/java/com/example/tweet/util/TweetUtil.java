@@ -8,19 +8,23 @@ import com.example.tweet.dto.response.ProfileResponse;
 import com.example.tweet.dto.response.TweetResponse;
 import com.example.tweet.entity.Tweet;
 import com.example.tweet.exception.ActionNotAllowedException;
-import com.example.tweet.repository.LikeRepository;
 import com.example.tweet.repository.TweetRepository;
-import com.example.tweet.repository.ViewRepository;
+import com.example.tweet.repository.projection.TweetStatistics;
 import com.example.tweet.service.KafkaProducerService;
 import com.example.tweet.service.MessageSourceService;
+import com.example.tweet.service.ViewService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.CacheKeyPrefix;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.Objects;
-import java.util.Set;
+import java.util.*;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 import static com.example.tweet.constant.CacheName.*;
 import static com.example.tweet.constant.EntityName.*;
@@ -35,27 +39,31 @@ public class TweetUtil {
     public enum EvictionStrategy {CACHE_ONLY, WITH_TIMELINE}
 
     private final TweetRepository tweetRepository;
-    private final LikeRepository likeRepository;
-    private final ViewRepository viewRepository;
     private final KafkaProducerService kafkaProducerService;
+    private final ViewService viewService;
     private final ProfileServiceClient profileServiceClient;
     private final MessageSourceService messageSourceService;
     private final CacheManager cacheManager;
+    private final RedisTemplate<String, Object> redisTemplate;
 
-    public int countRepliesForTweet(Long tweetId) {
-        return tweetRepository.countAllByReplyToId(tweetId);
-    }
-
-    public int countLikesForTweet(Long tweetId) {
-        return likeRepository.countAllByParentTweetId(tweetId);
-    }
+    /**
+     * Fetches the counters and the logged-in user's flags of the tweet and of every tweet it refers to
+     * (quoted, replied or retweeted, recursively) with a single query.
+     */
+    public Map<Long, TweetStatistics> getStatisticsForTweet(Tweet tweet, String loggedInUser) {
+        Set<Long> tweetIds = new HashSet<>();
+        collectTweetIds(tweet, tweetIds);
 
-    public int countRetweetsForTweet(Long tweetId) {
-        return tweetRepository.countAllByRetweetToId(tweetId);
-    }
+        String profileIdOfLoggedInUser = profileServiceClient.getProfileIdByLoggedInUser(loggedInUser);
+        Map<Long, TweetStatistics> statistics = tweetRepository.findStatisticsByIdIn(tweetIds, profileIdOfLoggedInUser)
+                .stream()
+                .collect(Collectors.toMap(TweetStatistics::tweetId, Function.identity()));
 
-    public int countViewsForTweet(Long tweetId) {
-        return viewRepository.countAllByParentTweetId(tweetId);
+        if (viewService.isApproximateCounting()) {
+            Map<Long, Long> views = viewService.countApproximateViews(statistics.keySet());
+            statistics.replaceAll((tweetId, tweetStatistics) -> tweetStatistics.withViews(views.get(tweetId)));
+        }
+        return statistics;
     }
 
     public boolean isEntityOwnedByLoggedInUser(Tweet entity, String loggedInUser) {
@@ -68,18 +76,8 @@ public class TweetUtil {
         return true;
     }
 
-    public boolean isTweetRetweetedByLoggedInUser(Long retweetToId, String loggedInUser, ProfileServiceClient profileServiceClient) {
-        String profileIdOfLoggedInUser = profileServiceClient.getProfileIdByLoggedInUser(loggedInUser);
-        return tweetRepository.findByRetweetToIdAndProfileId(retweetToId, profileIdOfLoggedInUser).isPresent();
-    }
-
-    public boolean isTweetLikedByLoggedInUser(Long parentTweetId, String loggedInUser, ProfileServiceClient profileServiceClient) {
-        String profileIdOfLoggedInUser = profileServiceClient.getProfileIdByLoggedInUser(loggedInUser);
-        return likeRepository.findByParentTweetIdAndProfileId(parentTweetId, profileIdOfLoggedInUser).isPresent();
-    }
-
     public void sendMessageToKafka(String topic, Tweet entity, EntityName entityName, Operation operation) {
-        EntityMessage entityMessage = EntityMessage.valueOf(entity.getId(), entity.getProfileId(), entityName, operation);
+        EntityMessage entityMessage = EntityMessage.valueOf(entity.getId(), entity.getProfileId(), entity.getCreationDate(), entityName, operation);
         kafkaProducerService.send(entityMessage, topic);
     }
 
@@ -113,6 +111,36 @@ public class TweetUtil {
         return response;
     }
 
+    public List<TweetResponse> getEntitiesByIds(
+            List<Long> entityIds,
+            String cacheName,
+            Function<List<Long>, List<Tweet>> obtainEntitiesFromDbFunc,
+            Function<Tweet, TweetResponse> mapFunc,
+            UnaryOperator<TweetResponse> updateFunc
+    ) {
+        Map<Long, TweetResponse> responses = getEntitiesFromCache(entityIds, cacheName);
+        responses.replaceAll((id, response) -> updateFunc.apply(updateProfileInResponse(response)));
+
+        List<Long> missedIds = entityIds.stream()
+                .filter(id -> !responses.containsKey(id))
+                .distinct()
+                .toList();
+
+        if (!missedIds.isEmpty()) {
+            Cache cache = Objects.requireNonNull(cacheManager.getCache(cacheName));
+            for (Tweet entity : obtainEntitiesFromDbFunc.apply(missedIds)) {
+                TweetResponse response = mapFunc.apply(entity);
+                cache.put(entity.getId(), response);
+                responses.put(entity.getId(), response);
+            }
+        }
+
+        return entityIds.stream()
+                .map(responses::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     public void evictEntityFromCache(Long entityId, String cacheName) {
         Objects.requireNonNull(cacheManager.getCache(cacheName)).evictIfPresent(Long.toString(entityId));
     }
@@ -133,6 +161,34 @@ public class TweetUtil {
         }
     }
 
+    private Map<Long, TweetResponse> getEntitiesFromCache(List<Long> entityIds, String cacheName) {
+        String prefix = CacheKeyPrefix.simple().compute(cacheName);
+        List<Object> values = redisTemplate.opsForValue().multiGet(
+                entityIds.stream()
+                        .map(id -> prefix + id)
+                        .toList()
+        );
+
+        Map<Long, TweetResponse> responses = new HashMap<>();
+        if (values != null) {
+            for (int i = 0; i < entityIds.size(); i++) {
+                if (values.get(i) instanceof TweetResponse response) {
+                    responses.put(entityIds.get(i), response);
+                }
+            }
+        }
+        return responses;
+    }
+
+    private void collectTweetIds(Tweet tweet, Set<Long> tweetIds) {
+        if (tweet == null || !tweetIds.add(tweet.getId())) {
+            return;
+        }
+        collectTweetIds(tweet.getQuoteTo(), tweetIds);
+        collectTweetIds(tweet.getReplyTo(), tweetIds);
+        collectTweetIds(tweet.getRetweetTo(), tweetIds);
+    }
+
     private void evictEntitiesFromCache(Iterable<Tweet> entities, String cacheName) {
         for (Tweet entity : entities) {
             evictEntityFromCache(entity.getId(), cacheName);
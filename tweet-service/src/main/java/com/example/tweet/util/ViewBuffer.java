@@ -0,0 +1,61 @@
+package com.example.tweet.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory set of views that haven't been written to the database yet. Views are split into shards
+ * by hash, each guarded by its own lock, so concurrent readers of different tweets rarely contend.
+ * Repeated views of a tweet by the same profile are kept once.
+ */
+@Component
+public class ViewBuffer {
+
+    public record BufferedView(String profileId, Long tweetId) {}
+
+    private final List<Set<BufferedView>> shards;
+    private final AtomicInteger size = new AtomicInteger();
+
+    public ViewBuffer(@Value("${tweet.views.buffer.shards:16}") int shards) {
+        this.shards = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            this.shards.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * @return the number of buffered views after the view has been added
+     */
+    public int add(String profileId, Long tweetId) {
+        BufferedView view = new BufferedView(profileId, tweetId);
+        Set<BufferedView> shard = shards.get(Math.floorMod(view.hashCode(), shards.size()));
+        synchronized (shard) {
+            if (!shard.add(view)) {
+                return size.get();
+            }
+        }
+        return size.incrementAndGet();
+    }
+
+    public List<BufferedView> drain() {
+        List<BufferedView> views = new ArrayList<>(size.get());
+        for (Set<BufferedView> shard : shards) {
+            synchronized (shard) {
+                views.addAll(shard);
+                shard.clear();
+            }
+        }
+        size.addAndGet(-views.size());
+        return views;
+    }
+
+    public int size() {
+        return size.get();
+    }
+}
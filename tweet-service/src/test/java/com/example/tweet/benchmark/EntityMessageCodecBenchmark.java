@@ -0,0 +1,77 @@
+package com.example.tweet.benchmark;
+
+import com.example.tweet.constant.EntityName;
+import com.example.tweet.constant.Operation;
+import com.example.tweet.dto.message.EntityMessage;
+import com.example.tweet.dto.message.EntityMessageCodec;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binary entity message format with the JSON format it replaced.
+ * Run the main method with the test classpath, e.g. after {@code mvn test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt}:
+ * {@code java -cp target/test-classes:target/classes:$(cat cp.txt) com.example.tweet.benchmark.EntityMessageCodecBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityMessageCodecBenchmark {
+
+    private final EntityMessageCodec codec = new EntityMessageCodec();
+    private final Gson gson = new Gson();
+
+    private EntityMessage message;
+    private byte[] binaryMessage;
+    private byte[] jsonMessage;
+
+    @Setup
+    public void setUp() {
+        message = EntityMessage.valueOf(
+                123456789L,
+                UUID.randomUUID().toString(),
+                LocalDateTime.now(),
+                EntityName.TWEETS,
+                Operation.ADD
+        );
+        binaryMessage = codec.serialize(null, message);
+        jsonMessage = gson.toJson(message).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return codec.serialize(null, message);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return gson.toJson(message).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public EntityMessage binaryDeserialize() {
+        return codec.deserialize(null, binaryMessage);
+    }
+
+    @Benchmark
+    public EntityMessage jsonDeserialize() {
+        return gson.fromJson(new String(jsonMessage, StandardCharsets.UTF_8), EntityMessage.class);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EntityMessageCodecBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.tweet.config;
+
+import com.example.tweet.client.ProfileServiceClient;
+import com.example.tweet.dto.response.ProfileResponse;
+import com.example.tweet.entity.Tweet;
+import com.example.tweet.mapper.TweetMapper;
+import com.example.tweet.mapper.TweetMapperImpl;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.example.tweet.constant.ChannelName.PROFILE_UPDATES_CHANNEL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * The near-cache is applied by a caching proxy around the profile-service client, which a mock bean
+ * would replace, so the client is a plain mock wrapped by the proxy of this context. The listener
+ * container is mocked so that no Redis connection is needed.
+ */
+@SpringJUnitConfig(ProfileCacheConfigTest.NearCacheConfig.class)
+@RequiredArgsConstructor
+public class ProfileCacheConfigTest {
+
+    private static final ProfileServiceClient PROFILE_SERVICE_CLIENT = mock(ProfileServiceClient.class);
+    private static final String PROFILE_ID = "profile id";
+    private static final String EMAIL = "dummy-email";
+
+    private final ProfileServiceClient profileServiceClient;
+    private final CaffeineCacheManager profileCacheManager;
+    private final MessageListener profileUpdatesListener;
+    private final TweetMapper tweetMapper;
+
+    @Configuration
+    @EnableCaching
+    @Import({ProfileCacheConfig.class, TweetMapperImpl.class})
+    static class NearCacheConfig {
+
+        @Bean
+        public ProfileServiceClient profileServiceClient() {
+            return PROFILE_SERVICE_CLIENT;
+        }
+
+        @Bean
+        public RedisMessageListenerContainer profileUpdatesListenerContainer() {
+            return mock(RedisMessageListenerContainer.class);
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        reset(PROFILE_SERVICE_CLIENT);
+        when(PROFILE_SERVICE_CLIENT.getProfileById(PROFILE_ID)).thenReturn(ProfileResponse.builder()
+                .profileId(PROFILE_ID)
+                .email(EMAIL)
+                .build());
+        profileCacheManager.getCacheNames()
+                .forEach(cacheName -> Objects.requireNonNull(profileCacheManager.getCache(cacheName)).clear());
+    }
+
+    @Test
+    public void hydrateTweetsOfOneAuthorTest() {
+        for (long id = 1; id <= 10; id++) {
+            Tweet tweet = Tweet.builder()
+                    .id(id)
+                    .text("some text")
+                    .profileId(PROFILE_ID)
+                    .creationDate(LocalDateTime.now())
+                    .build();
+
+            assertEquals(EMAIL, tweetMapper.toResponse(tweet, EMAIL, Map.of(), profileServiceClient).getProfile().getEmail());
+        }
+
+        verify(PROFILE_SERVICE_CLIENT, times(1)).getProfileById(PROFILE_ID);
+    }
+
+    @Test
+    public void profileUpdateEvictsProfileTest() {
+        profileServiceClient.getProfileById(PROFILE_ID);
+        profileServiceClient.getProfileById(PROFILE_ID);
+        verify(PROFILE_SERVICE_CLIENT, times(1)).getProfileById(PROFILE_ID);
+
+        profileUpdatesListener.onMessage(new DefaultMessage(
+                PROFILE_UPDATES_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                PROFILE_ID.getBytes(StandardCharsets.UTF_8)
+        ), null);
+        profileServiceClient.getProfileById(PROFILE_ID);
+
+        verify(PROFILE_SERVICE_CLIENT, times(2)).getProfileById(PROFILE_ID);
+    }
+}
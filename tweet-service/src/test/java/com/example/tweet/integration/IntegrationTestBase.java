@@ -79,6 +79,8 @@ public class IntegrationTestBase {
         registry.add("spring.data.redis.host", redisContainer::getHost);
         registry.add("spring.data.redis.port", redisContainer::getFirstMappedPort);
         registry.add("spring.kafka.bootstrap-servers", kafka::getBootstrapServers);
+        // views are flushed by the tests themselves
+        registry.add("tweet.views.flush-interval-ms", () -> Integer.MAX_VALUE);
     }
 
     @Data
@@ -86,12 +88,15 @@ public class IntegrationTestBase {
     @Slf4j
     protected static class KafkaTestConsumer {
 
-        private String payload;
+        private byte[] payload;
         private CountDownLatch latch = new CountDownLatch(1);
 
-        @KafkaListener(topics = USER_TIMELINE_TOPIC)
-        public void receive(String msg) {
-            log.info("received message {}", msg);
+        @KafkaListener(
+                topics = USER_TIMELINE_TOPIC,
+                properties = "value.deserializer=org.apache.kafka.common.serialization.ByteArrayDeserializer"
+        )
+        public void receive(byte[] msg) {
+            log.info("received message of {} bytes", msg.length);
             payload = msg;
             latch.countDown();
         }
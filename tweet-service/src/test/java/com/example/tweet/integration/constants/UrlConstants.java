@@ -13,6 +13,10 @@ public enum UrlConstants {
     TWEETS_URL("/api/v1/tweets"),
     TWEET_URL_WITH_ID("/api/v1/tweet/%d"),
     TWEETS_URL_WITH_ID("/api/v1/tweets/%d"),
+    TWEETS_BATCH_URL("/api/v1/tweets/batch"),
+    TWEETS_USER_URL("/api/v1/tweets/user/%s"),
+    RETWEETS_USER_URL("/api/v1/retweets/user/%s"),
+    REPLIES_USER_URL("/api/v1/replies/user/%s"),
     LIKE_URL_WITH_ID("/api/v1/like/%d"),
     RETWEET_URL("/api/v1/retweet"),
     RETWEET_URL_WITH_ID("/api/v1/retweet/%d"),
@@ -4,7 +4,10 @@ import com.example.tweet.dto.request.TweetCreateRequest;
 import com.example.tweet.integration.IntegrationTestBase;
 import com.example.tweet.repository.TweetRepository;
 import com.example.tweet.service.MessageSourceService;
+import com.example.tweet.service.ReplyService;
+import com.example.tweet.service.RetweetService;
 import com.example.tweet.service.TweetService;
+import com.example.tweet.service.ViewService;
 import lombok.RequiredArgsConstructor;
 import org.hamcrest.core.IsNull;
 import org.junit.jupiter.api.Test;
@@ -16,9 +19,12 @@ import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.time.ZoneOffset;
+
 import static com.example.tweet.integration.constants.GlobalConstants.*;
-import static com.example.tweet.integration.constants.UrlConstants.TWEET_URL;
-import static com.example.tweet.integration.constants.UrlConstants.TWEET_URL_WITH_ID;
+import static com.example.tweet.integration.constants.UrlConstants.*;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
@@ -35,7 +41,10 @@ public class TweetControllerTest extends IntegrationTestBase {
     private final MockMvc mockMvc;
     private final MessageSourceService messageSourceService;
     private final TweetService tweetService;
+    private final ReplyService replyService;
+    private final RetweetService retweetService;
     private final TweetRepository tweetRepository;
+    private final ViewService viewService;
 
     @Test
     public void createTweetTest() throws Exception {
@@ -68,9 +77,32 @@ public class TweetControllerTest extends IntegrationTestBase {
     public void getTweetTest() throws Exception {
         createDummyTweet();
 
-        getTweetAndExpectSuccess(1L, 1);
-        getTweetAndExpectSuccess(1L, 1);
+        // views are written behind, the first response is cached before the view is flushed
+        getTweetAndExpectSuccess(1L, 0);
+        getTweetAndExpectSuccess(1L, 0);
         getTweetAndExpectFailure(100L);
+
+        viewService.flushViews();
+        assertEquals(1, tweetRepository.findById(1L).orElseThrow().getViewCount());
+    }
+
+    @Test
+    public void getTweetsBatchTest() throws Exception {
+        createDummyTweet();
+        createDummyTweet();
+
+        mockMvc.perform(post(TWEETS_BATCH_URL.getConstant())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[2, 100, 1]")
+                        .header("loggedInUser", EMAIL.getConstant()))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.length()").value(2),
+                        jsonPath("$[0].id").value(2),
+                        jsonPath("$[1].id").value(1),
+                        jsonPath("$[0].text").value(DEFAULT_TWEET_TEXT.getConstant()),
+                        jsonPath("$[0].isBelongs").value(Boolean.TRUE)
+                );
     }
 
     @Test
@@ -102,6 +134,51 @@ public class TweetControllerTest extends IntegrationTestBase {
         deleteTweet(1L, true);
     }
 
+    @Test
+    public void getTweetsForUserBeforeTest() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            createDummyTweet();
+        }
+        long beforeTimestamp = getCreationTimestamp(3L);
+
+        getEntitiesForUserBeforeAndExpectIds(TWEETS_USER_URL.getConstant(), beforeTimestamp, 3L, 2, 1);
+
+        // the cursor is passed by value, so it still works after its tweet has been deleted
+        tweetService.deleteTweet(3L, EMAIL.getConstant());
+        getEntitiesForUserBeforeAndExpectIds(TWEETS_USER_URL.getConstant(), beforeTimestamp, 3L, 2, 1);
+        getEntitiesForUserBeforeAndExpectIds(TWEETS_USER_URL.getConstant(), getCreationTimestamp(2L), 2L, 1);
+    }
+
+    @Test
+    public void getRepliesForUserBeforeTest() throws Exception {
+        createDummyTweet();
+        for (int i = 0; i < 3; i++) {
+            replyService.reply(new TweetCreateRequest(DEFAULT_REPLY_TEXT.getConstant()), 1L, EMAIL.getConstant(), null);
+        }
+        long beforeTimestamp = getCreationTimestamp(4L);
+
+        getEntitiesForUserBeforeAndExpectIds(REPLIES_USER_URL.getConstant(), beforeTimestamp, 4L, 3, 2);
+
+        replyService.deleteReply(4L, EMAIL.getConstant());
+        getEntitiesForUserBeforeAndExpectIds(REPLIES_USER_URL.getConstant(), beforeTimestamp, 4L, 3, 2);
+    }
+
+    @Test
+    public void getRetweetsForUserBeforeTest() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            createDummyTweet();
+        }
+        for (long tweetId = 1; tweetId <= 3; tweetId++) {
+            retweetService.retweet(tweetId, EMAIL.getConstant());
+        }
+        long beforeTimestamp = getCreationTimestamp(5L);
+
+        getEntitiesForUserBeforeAndExpectIds(RETWEETS_USER_URL.getConstant(), beforeTimestamp, 5L, 4);
+
+        retweetService.undoRetweet(2L, EMAIL.getConstant());
+        getEntitiesForUserBeforeAndExpectIds(RETWEETS_USER_URL.getConstant(), beforeTimestamp, 5L, 4);
+    }
+
     private void createTweetAndExpectSuccess(String text) throws Exception {
         ResultActions resultActions = mockMvc.perform(multipart(
                 HttpMethod.POST,
@@ -253,6 +330,25 @@ public class TweetControllerTest extends IntegrationTestBase {
                 );
     }
 
+    private void getEntitiesForUserBeforeAndExpectIds(String url, long beforeTimestamp, Long beforeId, Integer... ids) throws Exception {
+        mockMvc.perform(get(url.formatted(ID.getConstant()))
+                        .param("beforeTimestamp", String.valueOf(beforeTimestamp))
+                        .param("beforeId", beforeId.toString())
+                        .param("size", "10"))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$[*].id", contains(ids))
+                );
+    }
+
+    private long getCreationTimestamp(Long id) {
+        return tweetRepository.findById(id)
+                .orElseThrow()
+                .getCreationDate()
+                .toInstant(ZoneOffset.UTC)
+                .toEpochMilli();
+    }
+
     private void createDummyTweet() {
         tweetService.createTweet(new TweetCreateRequest(DEFAULT_TWEET_TEXT.getConstant()), EMAIL.getConstant(), null);
     }
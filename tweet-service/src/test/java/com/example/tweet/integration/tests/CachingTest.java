@@ -8,6 +8,7 @@ import com.example.tweet.dto.response.TweetResponse;
 import com.example.tweet.entity.Tweet;
 import com.example.tweet.integration.IntegrationTestBase;
 import com.example.tweet.repository.TweetRepository;
+import com.example.tweet.repository.projection.TweetStatistics;
 import com.example.tweet.service.ReplyService;
 import com.example.tweet.service.RetweetService;
 import com.example.tweet.service.TweetService;
@@ -270,11 +271,8 @@ public class CachingTest extends IntegrationTestBase {
         when(tweetRepository.saveAndFlush(entity))
                 .thenReturn(entity);
 
-        doReturn(isRetweeted)
-                .when(tweetUtil).isTweetRetweetedByLoggedInUser(eq(entityId), anyString(), any());
-
-        doReturn(false)
-                .when(tweetUtil).isTweetLikedByLoggedInUser(eq(entityId), anyString(), any());
+        doReturn(Map.of(entityId, new TweetStatistics(entityId, 0L, 0L, 0L, 0L, false, isRetweeted)))
+                .when(tweetUtil).getStatisticsForTweet(argThat(tweet -> tweet != null && tweet.getId() == entityId), anyString());
 
         doNothing()
                 .when(tweetUtil).sendMessageToKafka(anyString(), any(Tweet.class), any(EntityName.class), any(Operation.class));
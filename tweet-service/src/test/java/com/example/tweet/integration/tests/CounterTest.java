@@ -0,0 +1,110 @@
+package com.example.tweet.integration.tests;
+
+import com.example.tweet.dto.request.TweetCreateRequest;
+import com.example.tweet.entity.Tweet;
+import com.example.tweet.integration.IntegrationTestBase;
+import com.example.tweet.repository.TweetRepository;
+import com.example.tweet.service.CounterReconciliationService;
+import com.example.tweet.service.LikeService;
+import com.example.tweet.service.ReplyService;
+import com.example.tweet.service.RetweetService;
+import com.example.tweet.service.ViewService;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+import static com.example.tweet.integration.constants.GlobalConstants.EMAIL;
+import static com.example.tweet.integration.constants.GlobalConstants.ID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@RequiredArgsConstructor
+public class CounterTest extends IntegrationTestBase {
+
+    private final LikeService likeService;
+    private final RetweetService retweetService;
+    private final ReplyService replyService;
+    private final ViewService viewService;
+    private final CounterReconciliationService counterReconciliationService;
+    private final TweetRepository tweetRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void likeCountTest() {
+        Tweet tweet = createTweet();
+
+        likeService.likeTweet(tweet.getId(), EMAIL.getConstant());
+        assertEquals(1, getTweet(tweet).getLikeCount());
+
+        likeService.unlikeTweet(tweet.getId(), EMAIL.getConstant());
+        assertEquals(0, getTweet(tweet).getLikeCount());
+    }
+
+    @Test
+    public void retweetCountTest() {
+        Tweet tweet = createTweet();
+
+        retweetService.retweet(tweet.getId(), EMAIL.getConstant());
+        assertEquals(1, getTweet(tweet).getRetweetCount());
+
+        retweetService.undoRetweet(tweet.getId(), EMAIL.getConstant());
+        assertEquals(0, getTweet(tweet).getRetweetCount());
+    }
+
+    @Test
+    public void replyCountTest() {
+        Tweet tweet = createTweet();
+
+        Long replyId = replyService.reply(new TweetCreateRequest("reply"), tweet.getId(), EMAIL.getConstant(), null).getId();
+        assertEquals(1, getTweet(tweet).getReplyCount());
+
+        replyService.deleteReply(replyId, EMAIL.getConstant());
+        assertEquals(0, getTweet(tweet).getReplyCount());
+    }
+
+    @Test
+    public void viewCountTest() {
+        Tweet tweet = createTweet();
+
+        viewService.createViewEntity(tweet, EMAIL.getConstant(), profileServiceClient);
+        viewService.createViewEntity(tweet, EMAIL.getConstant(), profileServiceClient);
+        viewService.flushViews();
+
+        assertEquals(1, getTweet(tweet).getViewCount());
+    }
+
+    @Test
+    public void reconcileCountersTest() {
+        Tweet tweet = createTweet();
+        likeService.likeTweet(tweet.getId(), EMAIL.getConstant());
+        retweetService.retweet(tweet.getId(), EMAIL.getConstant());
+        replyService.reply(new TweetCreateRequest("reply"), tweet.getId(), EMAIL.getConstant(), null);
+        viewService.createViewEntity(tweet, EMAIL.getConstant(), profileServiceClient);
+        viewService.flushViews();
+        jdbcTemplate.update(
+                "UPDATE tweets SET like_count = 0, reply_count = 5, retweet_count = 0, view_count = 7 WHERE id = ?",
+                tweet.getId()
+        );
+
+        counterReconciliationService.reconcileCounters();
+
+        Tweet reconciled = getTweet(tweet);
+        assertEquals(1, reconciled.getLikeCount());
+        assertEquals(1, reconciled.getReplyCount());
+        assertEquals(1, reconciled.getRetweetCount());
+        assertEquals(1, reconciled.getViewCount());
+    }
+
+    private Tweet createTweet() {
+        return tweetRepository.saveAndFlush(Tweet.builder()
+                .text("tweet")
+                .profileId(ID.getConstant())
+                .creationDate(LocalDateTime.now())
+                .build());
+    }
+
+    private Tweet getTweet(Tweet tweet) {
+        return tweetRepository.findById(tweet.getId()).orElseThrow();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.tweet.integration.tests;
+
+import com.example.tweet.entity.Tweet;
+import com.example.tweet.integration.IntegrationTestBase;
+import com.example.tweet.repository.TweetRepository;
+import com.example.tweet.repository.ViewRepository;
+import com.example.tweet.service.ViewService;
+import com.example.tweet.util.ViewBuffer;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.testcontainers.utility.Base58.randomString;
+
+@RequiredArgsConstructor
+@TestPropertySource(properties = {
+        "tweet.views.counting-mode=HYPERLOGLOG",
+        "tweet.views.audit-table=true"
+})
+public class HyperLogLogAuditViewTest extends IntegrationTestBase {
+
+    private final ViewService viewService;
+    private final ViewBuffer viewBuffer;
+    private final TweetRepository tweetRepository;
+    private final ViewRepository viewRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Test
+    public void flushViewsTest() {
+        Tweet tweet = createTweet();
+
+        viewBuffer.add("first viewer", tweet.getId());
+        viewBuffer.add("second viewer", tweet.getId());
+        viewService.flushViews();
+
+        viewBuffer.add("first viewer", tweet.getId());
+        viewService.flushViews();
+
+        assertEquals(0, viewBuffer.size());
+        assertEquals(2, viewService.countApproximateViews(List.of(tweet.getId())).get(tweet.getId()));
+        // the counter column is only kept up to date in exact mode
+        assertEquals(0, tweetRepository.findById(tweet.getId()).orElseThrow().getViewCount());
+        assertTrue(viewRepository.findByProfileIdAndParentTweetId("first viewer", tweet.getId()).isPresent());
+        assertTrue(viewRepository.findByProfileIdAndParentTweetId("second viewer", tweet.getId()).isPresent());
+    }
+
+    private Tweet createTweet() {
+        Tweet tweet = tweetRepository.saveAndFlush(Tweet.builder()
+                .text(randomString(10))
+                .profileId(randomString(10))
+                .creationDate(LocalDateTime.now())
+                .build());
+        stringRedisTemplate.delete("tweet_views:" + tweet.getId());
+        return tweet;
+    }
+}
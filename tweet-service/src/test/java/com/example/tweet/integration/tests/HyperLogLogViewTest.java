@@ -0,0 +1,89 @@
+package com.example.tweet.integration.tests;
+
+import com.example.tweet.entity.Tweet;
+import com.example.tweet.integration.IntegrationTestBase;
+import com.example.tweet.repository.TweetRepository;
+import com.example.tweet.repository.ViewRepository;
+import com.example.tweet.service.ViewService;
+import com.example.tweet.util.ViewBuffer;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.testcontainers.utility.Base58.randomString;
+
+@RequiredArgsConstructor
+@TestPropertySource(properties = {
+        "tweet.views.counting-mode=HYPERLOGLOG",
+        "tweet.views.audit-table=false"
+})
+public class HyperLogLogViewTest extends IntegrationTestBase {
+
+    private final ViewService viewService;
+    private final ViewBuffer viewBuffer;
+    private final TweetRepository tweetRepository;
+    private final ViewRepository viewRepository;
+    @SpyBean
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Test
+    public void flushViewsTest() {
+        Tweet tweet = createTweet();
+
+        viewBuffer.add("first viewer", tweet.getId());
+        viewBuffer.add("second viewer", tweet.getId());
+        viewService.flushViews();
+
+        viewBuffer.add("first viewer", tweet.getId());
+        viewService.flushViews();
+
+        assertEquals(0, viewBuffer.size());
+        assertEquals(2, getApproximateViewCount(tweet));
+        assertEquals(0, tweetRepository.findById(tweet.getId()).orElseThrow().getViewCount());
+        assertTrue(viewRepository.findByProfileIdAndParentTweetId("first viewer", tweet.getId()).isEmpty());
+    }
+
+    @Test
+    public void flushViewsWhenHyperLogLogsFailTest() {
+        Tweet tweet = createTweet();
+        doThrow(new RedisConnectionFailureException("Redis is unavailable"))
+                .doCallRealMethod()
+                .when(stringRedisTemplate).executePipelined(any(RedisCallback.class));
+
+        viewBuffer.add("first viewer", tweet.getId());
+        viewBuffer.add("second viewer", tweet.getId());
+        viewService.flushViews();
+
+        assertEquals(2, viewBuffer.size());
+
+        viewService.flushViews();
+
+        assertEquals(0, viewBuffer.size());
+        assertEquals(2, getApproximateViewCount(tweet));
+    }
+
+    private Tweet createTweet() {
+        Tweet tweet = tweetRepository.saveAndFlush(Tweet.builder()
+                .text(randomString(10))
+                .profileId(randomString(10))
+                .creationDate(LocalDateTime.now())
+                .build());
+        stringRedisTemplate.delete("tweet_views:" + tweet.getId());
+        return tweet;
+    }
+
+    private long getApproximateViewCount(Tweet tweet) {
+        return viewService.countApproximateViews(List.of(tweet.getId())).get(tweet.getId());
+    }
+}
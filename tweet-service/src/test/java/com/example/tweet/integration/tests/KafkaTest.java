@@ -2,17 +2,18 @@ package com.example.tweet.integration.tests;
 
 
 import com.example.tweet.dto.message.EntityMessage;
+import com.example.tweet.dto.message.EntityMessageCodec;
 import com.example.tweet.dto.response.ProfileResponse;
 import com.example.tweet.entity.Tweet;
 import com.example.tweet.integration.IntegrationTestBase;
 import com.example.tweet.util.TweetUtil;
-import com.google.gson.Gson;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import org.apache.commons.lang.math.RandomUtils;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.concurrent.TimeUnit;
 
 import static com.example.tweet.constant.EntityName.TWEETS;
@@ -27,7 +28,6 @@ import static org.testcontainers.utility.Base58.randomString;
 public class KafkaTest extends IntegrationTestBase {
 
     private final TweetUtil tweetUtil;
-    private final Gson gson;
     private final KafkaTestConsumer kafkaConsumer;
 
     @Test
@@ -38,12 +38,16 @@ public class KafkaTest extends IntegrationTestBase {
         tweetUtil.sendMessageToKafka(USER_TIMELINE_TOPIC, tweet, TWEETS, ADD);
 
         boolean messageReceived = kafkaConsumer.getLatch().await(5, TimeUnit.SECONDS);
-        EntityMessage receivedEntityMessage = gson.fromJson(kafkaConsumer.getPayload(), EntityMessage.class);
-
         assertTrue(messageReceived);
+        assertEquals(EntityMessageCodec.VERSION, kafkaConsumer.getPayload()[0]);
+
+        EntityMessage receivedEntityMessage = new EntityMessageCodec().deserialize(USER_TIMELINE_TOPIC, kafkaConsumer.getPayload());
         assertNotNull(receivedEntityMessage);
         assertEquals(tweet.getId(), receivedEntityMessage.entityId());
         assertEquals(profile.getProfileId(), receivedEntityMessage.profileId());
+        assertEquals(TWEETS.getName(), receivedEntityMessage.entityName());
+        assertEquals(ADD.getOperation(), receivedEntityMessage.operation());
+        assertEquals(tweet.getCreationDate().toInstant(ZoneOffset.UTC).toEpochMilli(), receivedEntityMessage.timestamp());
     }
 
     private Tweet buildDefaultTweet(Long id, ProfileResponse profile) {
@@ -0,0 +1,86 @@
+package com.example.tweet.integration.tests;
+
+import com.example.tweet.entity.Tweet;
+import com.example.tweet.integration.IntegrationTestBase;
+import com.example.tweet.repository.TweetRepository;
+import com.example.tweet.repository.ViewRepository;
+import com.example.tweet.service.ViewService;
+import com.example.tweet.util.ViewBuffer;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.testcontainers.utility.Base58.randomString;
+
+@RequiredArgsConstructor
+public class ViewTest extends IntegrationTestBase {
+
+    private final ViewService viewService;
+    private final ViewBuffer viewBuffer;
+    private final TweetRepository tweetRepository;
+    private final ViewRepository viewRepository;
+
+    @Test
+    public void flushViewsTest() {
+        Tweet tweet = createTweet();
+
+        viewBuffer.add("first viewer", tweet.getId());
+        viewBuffer.add("second viewer", tweet.getId());
+        viewService.flushViews();
+
+        assertEquals(0, viewBuffer.size());
+        assertEquals(2, getViewCount(tweet));
+        assertTrue(viewRepository.findByProfileIdAndParentTweetId("first viewer", tweet.getId()).isPresent());
+        assertTrue(viewRepository.findByProfileIdAndParentTweetId("second viewer", tweet.getId()).isPresent());
+    }
+
+    @Test
+    public void flushRepeatedViewsTest() {
+        Tweet tweet = createTweet();
+        Tweet anotherTweet = createTweet();
+
+        viewBuffer.add("first viewer", tweet.getId());
+        viewService.flushViews();
+
+        viewBuffer.add("first viewer", tweet.getId());
+        viewBuffer.add("third viewer", tweet.getId());
+        viewBuffer.add("first viewer", anotherTweet.getId());
+        viewService.flushViews();
+
+        assertEquals(2, getViewCount(tweet));
+        assertEquals(1, getViewCount(anotherTweet));
+    }
+
+    @Test
+    public void flushViewsOfDeletedTweetTest() {
+        Tweet tweet = createTweet();
+        Tweet deletedTweet = createTweet();
+
+        viewBuffer.add("first viewer", tweet.getId());
+        viewBuffer.add("first viewer", deletedTweet.getId());
+        viewBuffer.add("second viewer", deletedTweet.getId());
+        tweetRepository.deleteById(deletedTweet.getId());
+        viewService.flushViews();
+
+        assertEquals(0, viewBuffer.size());
+        assertEquals(1, getViewCount(tweet));
+        assertTrue(viewRepository.findByProfileIdAndParentTweetId("first viewer", deletedTweet.getId()).isEmpty());
+    }
+
+    private Tweet createTweet() {
+        return tweetRepository.saveAndFlush(Tweet.builder()
+                .text(randomString(10))
+                .profileId(randomString(10))
+                .creationDate(LocalDateTime.now())
+                .build());
+    }
+
+    private int getViewCount(Tweet tweet) {
+        return tweetRepository.findById(tweet.getId())
+                .orElseThrow()
+                .getViewCount();
+    }
+}